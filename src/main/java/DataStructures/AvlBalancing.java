@@ -0,0 +1,130 @@
+package DataStructures;
+
+/**
+ * AVL balancing, where the rank of a node is its height, counting leaves as 0, and the ranks of siblings differ by at
+ * most one.  An insertion is balanced by at most one single or double rotation, while a deletion may need one at
+ * every level on the way back up.
+ *
+ */
+class AvlBalancing extends BalancingStrategy {
+
+    @Override
+    void afterInsert(Rotator tree, RedBlackNode node) {
+        for (RedBlackNode parent = node.parent(); parent != null; parent = parent.parent()) {
+            int oldRank = parent.rank;
+            if (Math.abs(balance(parent)) > 1) {
+                // The rotation brings the subtree back to the height it had before the insertion
+                rebalance(tree, parent);
+                return;
+            }
+            updateRank(parent);
+            if (parent.rank == oldRank) {
+                return;
+            }
+        }
+    }
+
+    @Override
+    void afterDelete(Rotator tree, RedBlackNode parent, boolean left, RedBlackNode child, RedBlackNode removed) {
+        rebalanceUp(tree, parent);
+    }
+
+    /**
+     * Hangs the middle node from the first node of the facing spine of the taller tree that is at most one taller
+     * than the shorter tree.  The new subtree is at most two taller than its sibling, but unlike after an insertion a
+     * rotation may leave it taller than the subtree it replaced, so the climb goes on like after a deletion.
+     */
+    @Override
+    RedBlackNode join(Rotator tree, RedBlackNode left, RedBlackNode middle, RedBlackNode right) {
+        if (Math.abs(left.rank - right.rank) <= 1) {
+            link(null, false, middle, left, right);
+            updateRank(middle);
+            return middle;
+        }
+
+        boolean leftTaller = left.rank > right.rank;
+        RedBlackNode taller = leftTaller ? left : right;
+        RedBlackNode shorter = leftTaller ? right : left;
+        RedBlackNode parent = null;
+        RedBlackNode node = taller;
+        while (node.rank > shorter.rank + 1) {
+            parent = node;
+            node = node.child(!leftTaller);
+        }
+        link(parent, !leftTaller, middle, leftTaller ? node : shorter, leftTaller ? shorter : node);
+        updateRank(middle);
+        rebalanceUp(tree, parent);
+        return topOf(taller);
+    }
+
+    @Override
+    int rankAbove(RedBlackNode node) {
+        return 1 + Math.max(node.left().rank, node.right().rank);
+    }
+
+    /**
+     * Climbs from a node whose subtree changed height, updating ranks and rotating unbalanced nodes, until a subtree
+     * is back to its old height.
+     */
+    private static void rebalanceUp(Rotator tree, RedBlackNode parent) {
+        while (parent != null) {
+            int oldRank = parent.rank;
+            RedBlackNode top = parent;
+            if (Math.abs(balance(parent)) > 1) {
+                top = rebalance(tree, parent);
+            } else {
+                updateRank(parent);
+            }
+            if (top.rank == oldRank) {
+                return;
+            }
+            parent = top.parent();
+        }
+    }
+
+    /**
+     * Rotates the taller child of the unbalanced node above it, first rotating that child's taller grandchild up if
+     * it is the inner one.
+     *
+     * @return The node now at the top of the subtree
+     */
+    private static RedBlackNode rebalance(Rotator tree, RedBlackNode node) {
+        boolean leftHeavy = balance(node) > 0;
+        RedBlackNode child = node.child(leftHeavy);
+        RedBlackNode top = child;
+        if (child.child(!leftHeavy).rank > child.child(leftHeavy).rank) {
+            top = child.child(!leftHeavy);
+            tree.rotateUp(top);
+        }
+        tree.rotateUp(top);
+        updateRank(node);
+        updateRank(child);
+        updateRank(top);
+        return top;
+    }
+
+    /**
+     * @return The height of the left subtree minus that of the right subtree
+     */
+    private static int balance(RedBlackNode node) {
+        return node.left().rank - node.right().rank;
+    }
+
+    private static void updateRank(RedBlackNode node) {
+        node.rank = 1 + Math.max(node.left().rank, node.right().rank);
+    }
+
+    /**
+     * Checks the rank of the node against the ranks of its children, which makes every rank the height of its subtree
+     * once every node has been checked.
+     */
+    @Override
+    void validateNode(RedBlackNode node) {
+        int leftHeight = node.left().rank;
+        int rightHeight = node.right().rank;
+        assert Math.abs(leftHeight - rightHeight) <= 1 :
+                String.format("%s has subtrees of heights %d and %d", node, leftHeight, rightHeight);
+        assert node.rank == 1 + Math.max(leftHeight, rightHeight) :
+                String.format("%s has rank %d but height %d", node, node.rank, 1 + Math.max(leftHeight, rightHeight));
+    }
+}
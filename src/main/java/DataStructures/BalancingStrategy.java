@@ -0,0 +1,144 @@
+package DataStructures;
+
+/**
+ * The rules a RedBlackTree follows to keep its height logarithmic, chosen when the tree is built.  Strategies only
+ * keep the colours or ranks of nodes and rotate the tree after it has been changed, so they can be swapped without
+ * touching the search, insertion, deletion, batch and snapshot code of the tree.
+ *
+ * Strategies work on nodes whose missing children are sentinel LEAF nodes, which are never written to and have rank
+ * -1.
+ *
+ */
+public abstract class BalancingStrategy {
+    /**
+     * Red-black balancing, allowing a path to be up to twice as long as another, and at most three rotations per
+     * deletion.
+     */
+    public static final BalancingStrategy RED_BLACK = new RedBlackBalancing();
+    /**
+     * AVL balancing, keeping the heights of siblings within one of each other for the lowest height and the fastest
+     * searches, at the cost of up to O(log n) rotations per deletion.
+     */
+    public static final BalancingStrategy AVL = new AvlBalancing();
+    /**
+     * Weak AVL balancing, which builds exactly the AVL tree while only inserting, and takes at most two rotations per
+     * deletion, with O(1) amortized rank changes.
+     */
+    public static final BalancingStrategy WAVL = new WavlBalancing();
+
+    /**
+     * The only operation a strategy needs from the tree it balances.
+     */
+    interface Rotator {
+        /**
+         * Rotates the given node up above its parent.
+         */
+        void rotateUp(RedBlackNode node);
+    }
+
+    BalancingStrategy() {
+
+    }
+
+    /**
+     * Restores the balance of the tree after a node has been attached to it in place of a LEAF.
+     *
+     * @param tree Tree holding the node
+     * @param node New node, black with rank 0 and two LEAF children
+     */
+    abstract void afterInsert(Rotator tree, RedBlackNode node);
+
+    /**
+     * Restores the balance of the tree after a node with at most one child has been spliced out of it.
+     *
+     * @param tree Tree the node was removed from
+     * @param parent Parent of the removed node, or null if it was the root
+     * @param left Whether the removed node was the left child of its parent
+     * @param child The node, or LEAF, that took the removed node's place
+     * @param removed The removed node, with its colour and rank unchanged
+     */
+    abstract void afterDelete(Rotator tree, RedBlackNode parent, boolean left, RedBlackNode child, RedBlackNode removed);
+
+    /**
+     * Joins two trees into one through a middle node, whose value lies between the values of the left tree and those
+     * of the right tree.  The middle node is hung from the spine of the taller tree facing the shorter one, at the
+     * first node whose rank matches the shorter tree, and the balance is repaired from there, which takes time
+     * proportional to the difference between the ranks of the two trees.
+     *
+     * @param tree Tree the nodes belong to
+     * @param left Root of a balanced tree without a parent, or LEAF
+     * @param middle Node to join the trees through, whose links, colour and rank are overwritten
+     * @param right Root of a balanced tree without a parent, or LEAF
+     * @return Root of the joined tree, which has no parent
+     */
+    abstract RedBlackNode join(Rotator tree, RedBlackNode left, RedBlackNode middle, RedBlackNode right);
+
+    /**
+     * @return The rank of a node built above two balanced subtrees, which already have their ranks and colours
+     */
+    abstract int rankAbove(RedBlackNode node);
+
+    /**
+     * Validates the balancing rules that only concern a node and its children.
+     */
+    abstract void validateNode(RedBlackNode node);
+
+    /**
+     * Gives the middle node its children, and hangs it from the parent in place of the given child.
+     *
+     * @param parent Node to hang the middle node from, or null to make it a root
+     * @param asLeft Whether the middle node becomes the left child of the parent
+     * @return The middle node
+     */
+    static RedBlackNode link(RedBlackNode parent, boolean asLeft, RedBlackNode middle, RedBlackNode left, RedBlackNode right) {
+        middle.left = left;
+        middle.right = right;
+        if (!left.isSentinel()) {
+            left.parent = middle;
+        }
+        if (!right.isSentinel()) {
+            right.parent = middle;
+        }
+        middle.parent = parent;
+        if (parent != null) {
+            if (asLeft) {
+                parent.left = middle;
+            } else {
+                parent.right = middle;
+            }
+        }
+        return middle;
+    }
+
+    /**
+     * @return The root above a node, which is only a few levels up from where a former root was rotated to
+     */
+    static RedBlackNode topOf(RedBlackNode node) {
+        while (node.parent != null) {
+            node = node.parent();
+        }
+        return node;
+    }
+
+    /**
+     * @return The weight the node adds to every path through it, which validation requires to be the same along every
+     * path from a node down to a LEAF
+     */
+    int pathWeight(RedBlackNode node) {
+        return 0;
+    }
+
+    /**
+     * @return Whether the node should be drawn red by exports
+     */
+    boolean isRed(RedBlackNode node) {
+        return false;
+    }
+
+    /**
+     * @return The balancing information of the node, as printed by exports
+     */
+    String label(RedBlackNode node) {
+        return Integer.toString(node.rank);
+    }
+}
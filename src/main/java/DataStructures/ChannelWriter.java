@@ -0,0 +1,75 @@
+package DataStructures;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Writes ASCII text to a channel through a single fixed-size buffer, so that exporting a structure of any size takes
+ * a constant amount of memory.  Numbers are written digit by digit rather than through String conversions.
+ *
+ */
+class ChannelWriter {
+    private static final int BUFFER_SIZE = 1 << 16;
+    // Longest text written by one call of put(long), the sign and digits of Long.MIN_VALUE
+    private static final int MAX_NUMBER_LENGTH = 20;
+
+    private final WritableByteChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+    ChannelWriter(WritableByteChannel channel) {
+        this.channel = channel;
+    }
+
+    /**
+     * Writes the given ASCII text.
+     */
+    ChannelWriter put(String text) throws IOException {
+        for (int i = 0; i < text.length(); i++) {
+            if (!buffer.hasRemaining()) {
+                drain();
+            }
+            buffer.put((byte) text.charAt(i));
+        }
+        return this;
+    }
+
+    /**
+     * Writes the decimal representation of the given number.
+     */
+    ChannelWriter put(long number) throws IOException {
+        if (buffer.remaining() < MAX_NUMBER_LENGTH) {
+            drain();
+        }
+        if (number == Long.MIN_VALUE) {
+            return put(Long.toString(number));
+        }
+        if (number < 0) {
+            buffer.put((byte) '-');
+            number = -number;
+        }
+        long divisor = 1;
+        while (divisor <= number / 10) {
+            divisor *= 10;
+        }
+        for (; divisor > 0; divisor /= 10) {
+            buffer.put((byte) ('0' + number / divisor % 10));
+        }
+        return this;
+    }
+
+    /**
+     * Writes everything still buffered to the channel.
+     */
+    void flush() throws IOException {
+        drain();
+    }
+
+    private void drain() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
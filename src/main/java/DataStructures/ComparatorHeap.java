@@ -0,0 +1,142 @@
+package DataStructures;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Objects;
+
+/**
+ * A min-heap of values ordered by a Comparator, for composite keys that do not fit in an int.  O(log n) time
+ * complexity for both push() and pop() operations.
+ *
+ * Every comparison goes through the single compare() method and its final comparator field, so as long as a program
+ * only orders heaps with one comparator class, the call site stays monomorphic and the JIT can inline the comparison.
+ *
+ */
+public class ComparatorHeap<T> {
+    private static final int rootIndex = 0;
+    private static final int INITIAL_CAPACITY = 16;
+
+    private Object[] elements = new Object[INITIAL_CAPACITY];
+    private int size = 0;
+    private final Comparator<? super T> comparator;
+
+    /**
+     * @param comparator Order of the values, the minimal value being popped first
+     */
+    public ComparatorHeap(Comparator<? super T> comparator) {
+        this.comparator = Objects.requireNonNull(comparator, "comparator");
+    }
+
+    /**
+     * Pushes the given value onto the heap, moving it up until the heap property holds again.
+     * @param value A value to insert into the heap
+     */
+    public void push(T value) {
+        if (size == elements.length) {
+            elements = Arrays.copyOf(elements, size * 2);
+        }
+        upHeap(size++, value);
+    }
+
+    /**
+     * Pops the minimal element of the heap, moving the last element down from the root to fill its place.
+     * @return The minimal element of the heap, or null if the heap is empty.
+     */
+    public T pop() {
+        if (size == 0) {
+            return null;
+        }
+        T root = elementAt(rootIndex);
+        size--;
+        T last = elementAt(size);
+        // Let the popped slot drop its reference
+        elements[size] = null;
+        if (size > rootIndex) {
+            downHeap(rootIndex, last);
+        }
+        return root;
+    }
+
+    /**
+     * @return The minimal element of the heap without removing it, or null if the heap is empty.
+     */
+    public T peek() {
+        if (size == 0) {
+            return null;
+        }
+        return elementAt(rootIndex);
+    }
+
+    /**
+     * @return The number of values in the heap
+     */
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /******* General Helper Methods *******/
+
+    private int compare(T a, T b) {
+        return comparator.compare(a, b);
+    }
+
+    /**
+     * Moves the hole at the given index upwards, shifting parents down into it, until the value can be placed in it
+     * without breaking the heap property.
+     */
+    private void upHeap(int hole, T value) {
+        while (hole > rootIndex) {
+            int parent = (hole - 1) / 2;
+            if (compare(value, elementAt(parent)) >= 0) {
+                break;
+            }
+            elements[hole] = elements[parent];
+            hole = parent;
+        }
+        elements[hole] = value;
+    }
+
+    /**
+     * Moves the hole at the given index downwards, shifting the smaller child up into it, until the value can be
+     * placed in it without breaking the heap property.
+     */
+    private void downHeap(int hole, T value) {
+        while (true) {
+            int child = hole * 2 + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && compare(elementAt(child + 1), elementAt(child)) < 0) {
+                child++;
+            }
+            if (compare(elementAt(child), value) >= 0) {
+                break;
+            }
+            elements[hole] = elements[child];
+            hole = child;
+        }
+        elements[hole] = value;
+    }
+
+    @SuppressWarnings("unchecked")
+    private T elementAt(int index) {
+        return (T) elements[index];
+    }
+
+    /********* TEST METHODS **************/
+
+    /**
+     * Validates the heap property at every element of the heap.
+     */
+    void validate() {
+        for (int i = size - 1; i > rootIndex; i--) {
+            int parent = (i - 1) / 2;
+            assert compare(elementAt(i), elementAt(parent)) >= 0 :
+                    String.format("%s at %d is smaller than its parent %s", elementAt(i), i, elementAt(parent));
+        }
+    }
+}
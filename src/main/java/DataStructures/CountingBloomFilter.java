@@ -0,0 +1,244 @@
+package DataStructures;
+
+import java.util.Arrays;
+
+/**
+ * A counting Bloom filter over int keys, answering whether a key might have been added.  A negative answer is always
+ * correct, while a positive answer is wrong with a probability that depends on the number of counters, the number of
+ * hashes per key and the number of keys added.
+ *
+ * Each counter takes 4 bits, so keys can be removed as well as added.  A counter that reaches 15 saturates and is
+ * never decremented again, which keeps the filter free of false negatives at the cost of extra false positives.
+ * Removals hitting a saturated counter are counted, so that the owner knows when to rebuild the filter.
+ *
+ * Lookups are counted as well, giving the number of lookups the filter answered on its own and the number of false
+ * positives reported back to it.
+ *
+ */
+public class CountingBloomFilter {
+    private static final int COUNTER_BITS = 4;
+    private static final int MAX_COUNT = (1 << COUNTER_BITS) - 1;
+    // Every hash costs a counter read per lookup, so the rate is bought with counters rather than with more hashes
+    private static final int MAX_HASHES = 16;
+
+    // Two 4-bit counters are packed into each byte
+    private final byte[] counters;
+    private final int counterCount;
+    private final int hashCount;
+    private int keys = 0;
+    private int staleRemovals = 0;
+
+    private long lookups = 0;
+    private long negatives = 0;
+    private long falsePositives = 0;
+
+    /**
+     * Creates a filter sized for the expected number of keys at the desired false-positive rate, using the optimal
+     * number of counters, -n ln(p) / ln(2)^2, and of hashes, (m / n) ln(2).  Rates low enough to need more than 16
+     * hashes are met with 16 hashes and the extra counters they then require, -16n / ln(1 - p^(1/16)).
+     *
+     * @param expectedKeys The number of keys the filter is expected to hold at once
+     * @param falsePositiveRate The desired probability of a positive answer for a key that was not added
+     */
+    public CountingBloomFilter(int expectedKeys, double falsePositiveRate) {
+        this(optimalCounters(expectedKeys, falsePositiveRate), optimalHashes(expectedKeys,
+                optimalCounters(expectedKeys, falsePositiveRate)));
+    }
+
+    private CountingBloomFilter(int counterCount, int hashCount) {
+        if (counterCount <= 0 || hashCount <= 0) {
+            throw new IllegalArgumentException(String.format("Invalid filter of %d counters and %d hashes",
+                    counterCount, hashCount));
+        }
+        this.counterCount = counterCount;
+        this.hashCount = hashCount;
+        this.counters = new byte[(counterCount + 1) / 2];
+    }
+
+    /**
+     * Creates the filter with the lowest false-positive rate for the expected number of keys that fits in the given
+     * memory budget.  The budget is only a limit: the filter takes no more counters than 16 hashes per key make use
+     * of, 16n / ln(2), so an oversized budget cannot inflate the number of hashes every lookup has to compute.
+     *
+     * @param budgetBytes The number of bytes the counters may take
+     * @param expectedKeys The number of keys the filter is expected to hold at once
+     */
+    public static CountingBloomFilter withMemoryBudget(int budgetBytes, int expectedKeys) {
+        if (budgetBytes <= 0 || expectedKeys <= 0) {
+            throw new IllegalArgumentException(String.format("Invalid budget of %d bytes for %d keys",
+                    budgetBytes, expectedKeys));
+        }
+        double usefulCounters = Math.ceil(MAX_HASHES * (double) expectedKeys / Math.log(2));
+        int counterCount = (int) Math.min(Integer.MAX_VALUE - 1,
+                Math.min(budgetBytes * 8L / COUNTER_BITS, usefulCounters));
+        return new CountingBloomFilter(counterCount, optimalHashes(expectedKeys, counterCount));
+    }
+
+    private static int optimalCounters(int expectedKeys, double falsePositiveRate) {
+        if (expectedKeys <= 0 || !(falsePositiveRate > 0 && falsePositiveRate < 1)) {
+            throw new IllegalArgumentException(String.format("Invalid filter for %d keys at rate %s",
+                    expectedKeys, falsePositiveRate));
+        }
+        double counters = -expectedKeys * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2));
+        if (counters / expectedKeys * Math.log(2) > MAX_HASHES) {
+            counters = -MAX_HASHES * (double) expectedKeys / Math.log(1 - Math.pow(falsePositiveRate, 1.0 / MAX_HASHES));
+        }
+        return (int) Math.min(Integer.MAX_VALUE - 1, Math.ceil(counters));
+    }
+
+    private static int optimalHashes(int expectedKeys, int counterCount) {
+        long hashes = Math.round((double) counterCount / expectedKeys * Math.log(2));
+        return (int) Math.max(1, Math.min(MAX_HASHES, hashes));
+    }
+
+    /**
+     * Adds a key to the filter.
+     */
+    public void add(int key) {
+        long hash = mix(key);
+        for (int i = 0; i < hashCount; i++) {
+            int index = index(hash, i);
+            int count = getCounter(index);
+            if (count < MAX_COUNT) {
+                setCounter(index, count + 1);
+            }
+        }
+        keys++;
+    }
+
+    /**
+     * Removes a key that was previously added to the filter.
+     */
+    public void remove(int key) {
+        long hash = mix(key);
+        boolean stale = false;
+        for (int i = 0; i < hashCount; i++) {
+            int index = index(hash, i);
+            int count = getCounter(index);
+            assert count > 0 : "Removing a key that was never added: " + key;
+            if (count == MAX_COUNT) {
+                stale = true;
+            } else if (count > 0) {
+                setCounter(index, count - 1);
+            }
+        }
+        keys--;
+        if (stale) {
+            staleRemovals++;
+        }
+    }
+
+    /**
+     * Checks whether the key might have been added, counting the lookup.
+     *
+     * @return false if the key was certainly not added, true if it might have been
+     */
+    public boolean mightContain(int key) {
+        lookups++;
+        long hash = mix(key);
+        for (int i = 0; i < hashCount; i++) {
+            if (getCounter(index(hash, i)) == 0) {
+                negatives++;
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Records that a positive answer from mightContain() turned out to be wrong.
+     */
+    public void recordFalsePositive() {
+        falsePositives++;
+    }
+
+    /**
+     * Empties the filter, keeping its lookup counts.
+     */
+    public void clear() {
+        Arrays.fill(counters, (byte) 0);
+        keys = 0;
+        staleRemovals = 0;
+    }
+
+    /**
+     * @return Whether enough removals have hit saturated counters, and so left stale counts behind, that the filter
+     * should be rebuilt from the keys it is meant to hold
+     */
+    public boolean needsRebuild() {
+        return staleRemovals > keys / 8 + 16;
+    }
+
+    /******* General Helper Methods *******/
+
+    /**
+     * Spreads the bits of a key over a long, with the finalizer of the 64-bit MurmurHash3.  The two halves of the
+     * result then drive the double hashing of index().
+     */
+    private static long mix(int key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private int index(long hash, int i) {
+        int combined = (int) hash + i * ((int) (hash >>> 32) | 1);
+        return (int) ((combined & 0xffffffffL) % counterCount);
+    }
+
+    private int getCounter(int index) {
+        return (counters[index >>> 1] >>> ((index & 1) * COUNTER_BITS)) & MAX_COUNT;
+    }
+
+    private void setCounter(int index, int count) {
+        int shift = (index & 1) * COUNTER_BITS;
+        counters[index >>> 1] = (byte) ((counters[index >>> 1] & ~(MAX_COUNT << shift)) | (count << shift));
+    }
+
+    public int getCounterCount() {
+        return counterCount;
+    }
+
+    public int getHashCount() {
+        return hashCount;
+    }
+
+    /**
+     * @return The number of keys currently in the filter
+     */
+    public int size() {
+        return keys;
+    }
+
+    /**
+     * @return The number of lookups made through mightContain()
+     */
+    public long getLookups() {
+        return lookups;
+    }
+
+    /**
+     * @return The number of lookups answered negatively by the filter alone, ie. the lookups it saved
+     */
+    public long getSavedLookups() {
+        return negatives;
+    }
+
+    /**
+     * @return The number of positive answers reported as wrong through recordFalsePositive()
+     */
+    public long getFalsePositives() {
+        return falsePositives;
+    }
+
+    /**
+     * @return The number of bytes taken by the counters
+     */
+    public int getMemoryBytes() {
+        return counters.length;
+    }
+}
@@ -0,0 +1,193 @@
+package DataStructures;
+
+import java.util.Arrays;
+
+/**
+ * A min-heap of long deadlines, each attached to an int task index, stored in primitive arrays.  The heap also keeps
+ * the position of every task it holds, so that a task can be removed from the middle of the heap in O(log n) time
+ * instead of being left behind as a tombstone.  push(), pop() and remove() are all O(log n).
+ *
+ * Deadlines are compared by the sign of their difference, like System.nanoTime() values, so that they order correctly
+ * across numerical overflow.
+ *
+ */
+public class DeadlineHeap {
+    private static final int rootIndex = 0;
+    private static final int INITIAL_CAPACITY = 16;
+
+    private long[] deadlines = new long[INITIAL_CAPACITY];
+    private int[] tasks = new int[INITIAL_CAPACITY];
+    // The heap index of every task in the heap, or -1 for tasks not in it, indexed by task
+    private int[] positions = new int[INITIAL_CAPACITY];
+    private int size = 0;
+
+    public DeadlineHeap() {
+        Arrays.fill(positions, -1);
+    }
+
+    /**
+     * Pushes a task onto the heap.
+     *
+     * @param task Non-negative index of a task which is not already in the heap
+     * @param deadline The task's deadline
+     */
+    public void push(int task, long deadline) {
+        if (task < 0) {
+            throw new IllegalArgumentException("Task indices must not be negative: " + task);
+        }
+        if (task >= positions.length) {
+            int grown = positions.length;
+            while (grown <= task) {
+                grown *= 2;
+            }
+            int oldLength = positions.length;
+            positions = Arrays.copyOf(positions, grown);
+            Arrays.fill(positions, oldLength, grown, -1);
+        }
+        if (positions[task] != -1) {
+            throw new IllegalStateException("Task " + task + " is already in the heap");
+        }
+        if (size == deadlines.length) {
+            deadlines = Arrays.copyOf(deadlines, size * 2);
+            tasks = Arrays.copyOf(tasks, size * 2);
+        }
+        upHeap(size++, task, deadline);
+    }
+
+    /**
+     * Pops the task with the earliest deadline.
+     *
+     * @return The index of the task, or -1 if the heap is empty
+     */
+    public int pop() {
+        if (size == 0) {
+            return -1;
+        }
+        int task = tasks[rootIndex];
+        removeAt(rootIndex);
+        return task;
+    }
+
+    /**
+     * Removes the given task from wherever it is in the heap.
+     *
+     * @param task Index of the task to remove
+     * @return true if the task was in the heap
+     */
+    public boolean remove(int task) {
+        if (!contains(task)) {
+            return false;
+        }
+        removeAt(positions[task]);
+        return true;
+    }
+
+    public boolean contains(int task) {
+        return task >= 0 && task < positions.length && positions[task] != -1;
+    }
+
+    /**
+     * @return The index of the task with the earliest deadline, or -1 if the heap is empty
+     */
+    public int peekTask() {
+        return size == 0 ? -1 : tasks[rootIndex];
+    }
+
+    /**
+     * @return The earliest deadline in the heap, which must not be empty
+     */
+    public long peekDeadline() {
+        assert size > 0 : "Peeking into an empty heap";
+        return deadlines[rootIndex];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /******* General Helper Methods *******/
+
+    /**
+     * Fills the hole at the given index with the last element of the heap, then moves it up or down to restore the
+     * heap property.
+     */
+    private void removeAt(int index) {
+        positions[tasks[index]] = -1;
+        size--;
+        if (index == size) {
+            return;
+        }
+        int lastTask = tasks[size];
+        long lastDeadline = deadlines[size];
+        if (index > rootIndex && lastDeadline - deadlines[(index - 1) / 2] < 0) {
+            upHeap(index, lastTask, lastDeadline);
+        } else {
+            downHeap(index, lastTask, lastDeadline);
+        }
+    }
+
+    /**
+     * Moves the hole at the given index upwards, shifting parents down into it, until the given task can be placed in
+     * it without breaking the heap property.
+     */
+    private void upHeap(int hole, int task, long deadline) {
+        while (hole > rootIndex) {
+            int parent = (hole - 1) / 2;
+            if (deadline - deadlines[parent] >= 0) {
+                break;
+            }
+            place(hole, tasks[parent], deadlines[parent]);
+            hole = parent;
+        }
+        place(hole, task, deadline);
+    }
+
+    /**
+     * Moves the hole at the given index downwards, shifting the earlier child up into it, until the given task can be
+     * placed in it without breaking the heap property.
+     */
+    private void downHeap(int hole, int task, long deadline) {
+        while (true) {
+            int child = hole * 2 + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && deadlines[child + 1] - deadlines[child] < 0) {
+                child++;
+            }
+            if (deadlines[child] - deadline >= 0) {
+                break;
+            }
+            place(hole, tasks[child], deadlines[child]);
+            hole = child;
+        }
+        place(hole, task, deadline);
+    }
+
+    private void place(int index, int task, long deadline) {
+        tasks[index] = task;
+        deadlines[index] = deadline;
+        positions[task] = index;
+    }
+
+    /********* TEST METHODS **************/
+
+    /**
+     * Validates the heap property at every element of the heap, and that every position points back at its task.
+     */
+    void validate() {
+        for (int i = size - 1; i > rootIndex; i--) {
+            int parent = (i - 1) / 2;
+            assert deadlines[parent] - deadlines[i] <= 0 :
+                    String.format("deadline %d at %d is earlier than its parent's %d", deadlines[i], i, deadlines[parent]);
+        }
+        int positioned = 0;
+        for (int task = 0; task < positions.length; task++) {
+            if (positions[task] != -1) {
+                assert tasks[positions[task]] == task : "Task " + task + " is not where its position says";
+                positioned++;
+            }
+        }
+        assert positioned == size : String.format("%d tasks positioned but the heap holds %d", positioned, size);
+    }
+}
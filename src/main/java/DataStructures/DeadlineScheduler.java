@@ -0,0 +1,499 @@
+package DataStructures;
+
+import java.util.Arrays;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Runs tasks once their deadline, a System.nanoTime() value, has passed.  Deadlines due soon are kept in a
+ * DeadlineHeap, while deadlines further in the future are parked in a hierarchical timer wheel and only moved into
+ * the heap as they approach, so the heap stays small however many far-future tasks are pending.
+ *
+ * A single timer thread sleeps until the earliest deadline, then pops every expired task as one batch and hands the
+ * batch to an executor outside of the lock.  On JDK 21 and later, passing Executors.newVirtualThreadPerTaskExecutor()
+ * dispatches each task on its own virtual thread.
+ *
+ * Tasks live in slots of primitive arrays which are reused once a task fires or is cancelled.  A task's handle holds
+ * its slot along with a generation number, so a stale handle can never cancel a later task.  Cancelling removes the
+ * task from the heap or unlinks it from its wheel bucket right away, leaving no tombstone behind.
+ *
+ */
+public class DeadlineScheduler implements AutoCloseable {
+    private static final Logger logger = Logger.getLogger(DeadlineScheduler.class.getName());
+
+    private static final int LEVELS = 4;
+    // Each level of the wheel has SLOTS buckets, each 2^LEVEL_BITS times wider than the buckets of the level below
+    private static final int SLOTS = 128;
+    private static final int LEVEL_BITS = 6;
+    private static final long DEFAULT_TICK_NANOS = 1L << 20;
+    private static final int INITIAL_CAPACITY = 64;
+    private static final int NO_TASK = -1;
+    private static final int IN_HEAP = -2;
+
+    private final Executor executor;
+    private final long tickNanos;
+    // Source of the current time, System.nanoTime() unless a test drives the scheduler itself
+    private final LongSupplier clock;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition wakeUp = lock.newCondition();
+    // The thread dispatching expired tasks, or null if they are only dispatched by runDue()
+    private final Thread timerThread;
+    private volatile boolean shutdown = false;
+
+    // Task slots, indexed by task
+    private Runnable[] runnables = new Runnable[INITIAL_CAPACITY];
+    private long[] deadlines = new long[INITIAL_CAPACITY];
+    private int[] generations = new int[INITIAL_CAPACITY];
+    // IN_HEAP, NO_TASK for free slots, or the wheel bucket holding the task as level * SLOTS + bucket
+    private int[] locations = new int[INITIAL_CAPACITY];
+    // Links between tasks sharing a wheel bucket, with nextLinks also chaining free slots together
+    private int[] nextLinks = new int[INITIAL_CAPACITY];
+    private int[] prevLinks = new int[INITIAL_CAPACITY];
+    private int freeHead = NO_TASK;
+    private int used = 0;
+
+    private final DeadlineHeap heap = new DeadlineHeap();
+    private final int[][] bucketHeads = new int[LEVELS][SLOTS];
+    private final int[] levelCounts = new int[LEVELS];
+    // The first bucket number of each level which has not been drained yet
+    private final long[] nextBuckets = new long[LEVELS];
+    private int pending = 0;
+    // The time the timer thread will wake at by itself, so that schedule() only signals it for earlier deadlines
+    private long wakeAt = Long.MAX_VALUE;
+
+    private Runnable[] batch = new Runnable[INITIAL_CAPACITY];
+    private final LatencyHistogram lateness = new LatencyHistogram();
+
+    /**
+     * Creates a scheduler dispatching tasks on the common fork-join pool, with a wheel tick of about a millisecond.
+     */
+    public DeadlineScheduler() {
+        this(ForkJoinPool.commonPool(), DEFAULT_TICK_NANOS);
+    }
+
+    /**
+     * @param executor Executor every expired task is handed to
+     * @param tickNanos Width of the finest wheel buckets.  Deadlines less than about two ticks away go straight into
+     *                  the heap, and every level of the wheel is 64 times coarser than the one below it.
+     */
+    public DeadlineScheduler(Executor executor, long tickNanos) {
+        this(executor, tickNanos, System::nanoTime, true);
+    }
+
+    /**
+     * Creates a scheduler reading the time from the given clock, without a timer thread, so that time only moves
+     * when the caller advances the clock and expired tasks are only dispatched by runDue().
+     *
+     * @param executor Executor every expired task is handed to
+     * @param tickNanos Width of the finest wheel buckets
+     * @param clock Source of the current time, in nanoseconds
+     */
+    DeadlineScheduler(Executor executor, long tickNanos, LongSupplier clock) {
+        this(executor, tickNanos, clock, false);
+    }
+
+    private DeadlineScheduler(Executor executor, long tickNanos, LongSupplier clock, boolean startTimer) {
+        if (tickNanos <= 0) {
+            throw new IllegalArgumentException("Tick must be positive: " + tickNanos);
+        }
+        this.executor = executor;
+        this.tickNanos = tickNanos;
+        this.clock = clock;
+        Arrays.fill(locations, NO_TASK);
+        for (int[] heads : bucketHeads) {
+            Arrays.fill(heads, NO_TASK);
+        }
+        long now = clock.getAsLong();
+        for (int level = 0; level < LEVELS; level++) {
+            nextBuckets[level] = Math.floorDiv(now, width(level)) + 2;
+        }
+        if (startTimer) {
+            timerThread = new Thread(this::runTimer, "deadline-scheduler");
+            timerThread.setDaemon(true);
+            timerThread.start();
+        } else {
+            timerThread = null;
+        }
+    }
+
+    /**
+     * Schedules a task to run once the given delay has passed.
+     *
+     * @return A handle which can be passed to cancel()
+     */
+    public long schedule(Runnable task, long delay, TimeUnit unit) {
+        return scheduleAt(task, clock.getAsLong() + unit.toNanos(delay));
+    }
+
+    /**
+     * Schedules a task to run once the clock, System.nanoTime() by default, reaches the given deadline.
+     *
+     * @return A handle which can be passed to cancel()
+     */
+    public long scheduleAt(Runnable task, long deadlineNanos) {
+        if (task == null) {
+            throw new NullPointerException("task");
+        }
+        lock.lock();
+        try {
+            if (shutdown) {
+                throw new RejectedExecutionException("The scheduler has been shut down");
+            }
+            int slot = allocate();
+            runnables[slot] = task;
+            deadlines[slot] = deadlineNanos;
+            pending++;
+            long wakeNeeded = place(slot, clock.getAsLong());
+            if (wakeNeeded < wakeAt) {
+                wakeUp.signal();
+            }
+            return (long) generations[slot] << 32 | slot;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Cancels a task which has not been dispatched yet.
+     *
+     * @param handle Handle returned when the task was scheduled
+     * @return true if the task was cancelled, false if it already fired, was already cancelled or is unknown
+     */
+    public boolean cancel(long handle) {
+        int slot = (int) handle;
+        int generation = (int) (handle >>> 32);
+        lock.lock();
+        try {
+            if (slot < 0 || slot >= used || generations[slot] != generation || locations[slot] == NO_TASK) {
+                return false;
+            }
+            if (locations[slot] == IN_HEAP) {
+                heap.remove(slot);
+            } else {
+                unlink(slot);
+            }
+            release(slot);
+            pending--;
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return The number of tasks scheduled but neither dispatched nor cancelled
+     */
+    public int pending() {
+        lock.lock();
+        try {
+            return pending;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return A copy of the histogram of how late, in nanoseconds, each task was dispatched after its deadline
+     */
+    public LatencyHistogram getLateness() {
+        lock.lock();
+        try {
+            LatencyHistogram copy = new LatencyHistogram();
+            copy.add(lateness);
+            return copy;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Stops the timer thread, dropping every pending task.  Tasks already handed to the executor are not affected.
+     */
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            shutdown = true;
+            wakeUp.signal();
+        } finally {
+            lock.unlock();
+        }
+        if (timerThread == null) {
+            return;
+        }
+        try {
+            timerThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /******* Timer Thread *******/
+
+    private void runTimer() {
+        lock.lock();
+        try {
+            while (!shutdown) {
+                long now = clock.getAsLong();
+                int due = collectDue(now);
+                if (due > 0) {
+                    lock.unlock();
+                    try {
+                        dispatch(due);
+                    } finally {
+                        lock.lock();
+                    }
+                    continue;
+                }
+
+                wakeAt = nextWakeTime();
+                try {
+                    if (wakeAt == Long.MAX_VALUE) {
+                        wakeUp.await();
+                    } else {
+                        wakeUp.awaitNanos(wakeAt - now);
+                    }
+                } catch (InterruptedException e) {
+                    shutdown = true;
+                }
+                wakeAt = Long.MIN_VALUE;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Dispatches every task due by the current time of the clock, on the calling thread, for a scheduler created
+     * without a timer thread.
+     *
+     * @return The number of tasks handed to the executor
+     */
+    int runDue() {
+        if (timerThread != null) {
+            throw new IllegalStateException("Expired tasks are dispatched by the timer thread");
+        }
+        int due;
+        lock.lock();
+        try {
+            due = collectDue(clock.getAsLong());
+        } finally {
+            lock.unlock();
+        }
+        dispatch(due);
+        return due;
+    }
+
+    /**
+     * Moves the wheel buckets due by now towards the heap, then pops every expired task into the batch, recording how
+     * late it is.
+     *
+     * @return The number of tasks placed in the batch
+     */
+    private int collectDue(long now) {
+        advanceWheel(now);
+        int due = 0;
+        while (heap.size() > 0 && heap.peekDeadline() - now <= 0) {
+            int slot = heap.pop();
+            if (due == batch.length) {
+                batch = Arrays.copyOf(batch, due * 2);
+            }
+            batch[due++] = runnables[slot];
+            lateness.record(now - deadlines[slot]);
+            release(slot);
+            pending--;
+        }
+        return due;
+    }
+
+    /**
+     * Hands the first due tasks of the batch to the executor, outside of the lock.  Only the timer thread, or the
+     * caller of runDue() when there is none, touches the batch, so it is safe to read without the lock.
+     */
+    private void dispatch(int due) {
+        for (int i = 0; i < due; i++) {
+            try {
+                executor.execute(batch[i]);
+            } catch (RejectedExecutionException e) {
+                logger.log(Level.WARNING, "Executor rejected an expired task", e);
+            }
+            batch[i] = null;
+        }
+    }
+
+    /**
+     * @return The earliest time at which the heap holds an expired task or a non-empty wheel level has a bucket to
+     * drain, or Long.MAX_VALUE if no task is pending
+     */
+    private long nextWakeTime() {
+        long wake = heap.size() > 0 ? heap.peekDeadline() : Long.MAX_VALUE;
+        for (int level = 0; level < LEVELS; level++) {
+            if (levelCounts[level] > 0) {
+                wake = Math.min(wake, drainTime(level, nextBuckets[level]));
+            }
+        }
+        return wake;
+    }
+
+    /******* Timer Wheel *******/
+
+    private long width(int level) {
+        return tickNanos << (LEVEL_BITS * level);
+    }
+
+    /**
+     * Bucket number b of a level holds deadlines in [b * width, (b + 1) * width), and is drained once the current
+     * bucket number reaches b - 1, ie. while its deadlines are still at least one bucket width away.
+     */
+    private long drainTime(int level, long bucketNumber) {
+        return (bucketNumber - 1) * width(level);
+    }
+
+    /**
+     * Places a task either in the heap or in the finest wheel level that holds its deadline at least two buckets
+     * ahead of now and less than SLOTS buckets ahead.  Deadlines beyond the coarsest level are parked in its furthest
+     * bucket and placed again whenever it is drained.
+     *
+     * @return The time at which the timer thread has to wake up for this task
+     */
+    private long place(int slot, long now) {
+        long deadline = deadlines[slot];
+        for (int level = 0; level < LEVELS; level++) {
+            long bucketNumber = Math.floorDiv(deadline, width(level));
+            long current = Math.floorDiv(now, width(level));
+            if (bucketNumber < current + 2) {
+                break;
+            }
+            if (bucketNumber < current + SLOTS || level == LEVELS - 1) {
+                bucketNumber = Math.min(bucketNumber, current + SLOTS - 1);
+                link(slot, level, (int) Math.floorMod(bucketNumber, (long) SLOTS));
+                return drainTime(level, bucketNumber);
+            }
+        }
+        heap.push(slot, deadline);
+        locations[slot] = IN_HEAP;
+        return deadline;
+    }
+
+    /**
+     * Drains every bucket whose deadlines are now less than two buckets away, from the coarsest level down, so that
+     * tasks cascade into finer levels and finally into the heap.
+     */
+    private void advanceWheel(long now) {
+        for (int level = LEVELS - 1; level >= 0; level--) {
+            long target = Math.floorDiv(now, width(level)) + 2;
+            if (levelCounts[level] == 0) {
+                nextBuckets[level] = Math.max(nextBuckets[level], target);
+                continue;
+            }
+            // After a long sleep every bucket may be due, but each only needs to be drained once
+            nextBuckets[level] = Math.max(nextBuckets[level], target - SLOTS);
+            while (nextBuckets[level] < target) {
+                int bucket = (int) Math.floorMod(nextBuckets[level], (long) SLOTS);
+                int slot = bucketHeads[level][bucket];
+                bucketHeads[level][bucket] = NO_TASK;
+                while (slot != NO_TASK) {
+                    int next = nextLinks[slot];
+                    levelCounts[level]--;
+                    place(slot, now);
+                    slot = next;
+                }
+                nextBuckets[level]++;
+            }
+        }
+    }
+
+    private void link(int slot, int level, int bucket) {
+        int head = bucketHeads[level][bucket];
+        nextLinks[slot] = head;
+        prevLinks[slot] = NO_TASK;
+        if (head != NO_TASK) {
+            prevLinks[head] = slot;
+        }
+        bucketHeads[level][bucket] = slot;
+        locations[slot] = level * SLOTS + bucket;
+        levelCounts[level]++;
+    }
+
+    private void unlink(int slot) {
+        int level = locations[slot] / SLOTS;
+        int bucket = locations[slot] % SLOTS;
+        if (prevLinks[slot] == NO_TASK) {
+            bucketHeads[level][bucket] = nextLinks[slot];
+        } else {
+            nextLinks[prevLinks[slot]] = nextLinks[slot];
+        }
+        if (nextLinks[slot] != NO_TASK) {
+            prevLinks[nextLinks[slot]] = prevLinks[slot];
+        }
+        levelCounts[level]--;
+    }
+
+    /******* Task Slots *******/
+
+    private int allocate() {
+        if (freeHead != NO_TASK) {
+            int slot = freeHead;
+            freeHead = nextLinks[slot];
+            return slot;
+        }
+        if (used == runnables.length) {
+            int grown = used * 2;
+            runnables = Arrays.copyOf(runnables, grown);
+            deadlines = Arrays.copyOf(deadlines, grown);
+            generations = Arrays.copyOf(generations, grown);
+            locations = Arrays.copyOf(locations, grown);
+            Arrays.fill(locations, used, grown, NO_TASK);
+            nextLinks = Arrays.copyOf(nextLinks, grown);
+            prevLinks = Arrays.copyOf(prevLinks, grown);
+        }
+        return used++;
+    }
+
+    private void release(int slot) {
+        runnables[slot] = null;
+        locations[slot] = NO_TASK;
+        generations[slot]++;
+        nextLinks[slot] = freeHead;
+        freeHead = slot;
+    }
+
+    /********* TEST METHODS **************/
+
+    /**
+     * Validates that every pending task is in exactly one of the heap and the wheel, in the bucket its location
+     * names, and that the counts agree.
+     */
+    void validate() {
+        lock.lock();
+        try {
+            heap.validate();
+            int inWheel = 0;
+            for (int level = 0; level < LEVELS; level++) {
+                int inLevel = 0;
+                for (int bucket = 0; bucket < SLOTS; bucket++) {
+                    int previous = NO_TASK;
+                    for (int slot = bucketHeads[level][bucket]; slot != NO_TASK; slot = nextLinks[slot]) {
+                        assert locations[slot] == level * SLOTS + bucket : "Task " + slot + " is in the wrong bucket";
+                        assert prevLinks[slot] == previous : "Broken bucket links at task " + slot;
+                        previous = slot;
+                        inLevel++;
+                    }
+                }
+                assert inLevel == levelCounts[level] : String.format("Level %d holds %d tasks but counts %d", level, inLevel, levelCounts[level]);
+                inWheel += inLevel;
+            }
+            assert heap.size() + inWheel == pending :
+                    String.format("%d tasks in the heap and %d in the wheel but %d pending", heap.size(), inWheel, pending);
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package DataStructures;
+
+import java.util.function.IntConsumer;
+
+/**
+ * A read-only snapshot of the values of a RedBlackTree, made by RedBlackTree.freeze().  The values are kept in a single
+ * int array in Eytzinger order, the breadth-first order of a perfectly balanced search tree: the children of the value
+ * at index i are at 2i and 2i + 1, with index 0 left unused.  The first levels of the search tree therefore share a
+ * handful of cache lines, and a search needs no node references at all.
+ *
+ * Searches descend the implicit tree without branching on the outcome of each comparison, only on the depth, and the
+ * last value found on the way is then recovered from the bits of the final index.  search(), floor(), ceiling() and
+ * count() all take O(log n) time, and range() O(log n + k) for the k values it visits.
+ *
+ */
+public class FrozenTree {
+    // Largest number of values whose Eytzinger indices and their children still fit in an int
+    static final int MAX_VALUES = (1 << 30) - 1;
+
+    private final int[] keys;
+    // The number of copies of each value, in the same order as keys, or null if the tree was not a multiset
+    private final int[] counts;
+    private final int length;
+    private final int size;
+
+    /**
+     * @param sortedKeys Distinct values in ascending order
+     * @param sortedCounts The number of copies of each value, or null if every value has a single copy
+     * @param length The number of values to take from the arrays
+     */
+    FrozenTree(int[] sortedKeys, int[] sortedCounts, int length) {
+        if (length > MAX_VALUES) {
+            throw new IllegalArgumentException("Cannot freeze more than " + MAX_VALUES + " values: " + length);
+        }
+        this.length = length;
+        this.keys = new int[length + 1];
+        this.counts = sortedCounts == null ? null : new int[length + 1];
+
+        // Visiting the indices of the implicit tree in order hands out the sorted values in order
+        int total = 0;
+        int index = leftmost(1);
+        for (int i = 0; i < length; i++) {
+            keys[index] = sortedKeys[i];
+            if (counts != null) {
+                counts[index] = sortedCounts[i];
+                total += sortedCounts[i];
+            }
+            index = successor(index);
+        }
+        this.size = counts == null ? length : total;
+    }
+
+    /**
+     * @return The number of values in the snapshot, counting every copy of a value of a multiset
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return The number of bytes taken by the arrays of the snapshot
+     */
+    public long getMemoryBytes() {
+        return (long) Integer.BYTES * (keys.length + (counts == null ? 0 : counts.length));
+    }
+
+    /************ SEARCH METHODS *********************/
+
+    /**
+     * Searches for a given value in the snapshot.
+     *
+     * @param value Value to search for
+     * @return true if the value was found, false otherwise
+     */
+    public boolean search(int value) {
+        int index = ceilingIndex(value);
+        return index != 0 && keys[index] == value;
+    }
+
+    /**
+     * @param value Value to count the copies of
+     * @return The number of copies of the value in the snapshot, which is at most 1 unless the tree was a multiset
+     */
+    public int count(int value) {
+        int index = ceilingIndex(value);
+        if (index == 0 || keys[index] != value) {
+            return 0;
+        }
+        return counts == null ? 1 : counts[index];
+    }
+
+    /**
+     * @return The greatest value less than or equal to the given value, or null if there is none
+     */
+    public Integer floor(int value) {
+        int index = floorIndex(value);
+        return index == 0 ? null : keys[index];
+    }
+
+    /**
+     * @return The least value greater than or equal to the given value, or null if there is none
+     */
+    public Integer ceiling(int value) {
+        int index = ceilingIndex(value);
+        return index == 0 ? null : keys[index];
+    }
+
+    /**
+     * Visits every distinct value within the given bounds in ascending order.
+     *
+     * @param low Lower bound of the range, inclusive
+     * @param high Upper bound of the range, inclusive
+     * @param visitor Called with each value in the range
+     * @return The number of values visited
+     */
+    public int range(int low, int high, IntConsumer visitor) {
+        int visited = 0;
+        for (int index = ceilingIndex(low); index != 0 && keys[index] <= high; index = successor(index)) {
+            visitor.accept(keys[index]);
+            visited++;
+        }
+        return visited;
+    }
+
+    /******* General Helper Methods *******/
+
+    /**
+     * Descends to the bottom of the implicit tree, going right past every value below the given one.  The comparison
+     * only picks the next index, so the JIT can compile it to a conditional move rather than a branch.  The ceiling is
+     * the last value the descent went left at, found by dropping the trailing right turns and then one left turn.
+     *
+     * @return The index of the least value greater than or equal to the given value, or 0 if there is none
+     */
+    private int ceilingIndex(int value) {
+        int index = 1;
+        while (index <= length) {
+            index = 2 * index + (keys[index] < value ? 1 : 0);
+        }
+        return index >>> (Integer.numberOfTrailingZeros(~index) + 1);
+    }
+
+    /**
+     * The mirror image of ceilingIndex(), recovering the last value the descent went right at.
+     *
+     * @return The index of the greatest value less than or equal to the given value, or 0 if there is none
+     */
+    private int floorIndex(int value) {
+        int index = 1;
+        while (index <= length) {
+            index = 2 * index + (keys[index] <= value ? 1 : 0);
+        }
+        return index >>> (Integer.numberOfTrailingZeros(index) + 1);
+    }
+
+    /**
+     * @return The index of the leftmost value in the subtree at the given index
+     */
+    private int leftmost(int index) {
+        while (2 * index <= length) {
+            index *= 2;
+        }
+        return index;
+    }
+
+    /**
+     * @return The index of the next value in ascending order, or 0 past the last value
+     */
+    private int successor(int index) {
+        if (2 * index + 1 <= length) {
+            return leftmost(2 * index + 1);
+        }
+        // Climb past every ancestor this subtree is the right child of, then past the one it is the left child of
+        return index >>> (Integer.numberOfTrailingZeros(~index) + 1);
+    }
+
+    /********* TEST METHODS **************/
+
+    /**
+     * Validates that an in-order walk of the implicit tree yields strictly ascending values, as many as the snapshot
+     * holds, with a positive number of copies each.
+     */
+    void validate() {
+        int visited = 0;
+        long previous = Long.MIN_VALUE;
+        int total = 0;
+        for (int index = length == 0 ? 0 : leftmost(1); index != 0; index = successor(index)) {
+            assert keys[index] > previous : String.format("%d follows %d in order", keys[index], previous);
+            assert counts == null || counts[index] > 0 : keys[index] + " has no copies";
+            previous = keys[index];
+            total += counts == null ? 1 : counts[index];
+            visited++;
+        }
+        assert visited == length : String.format("Visited %d values out of %d", visited, length);
+        assert total == size : String.format("Counted %d copies but the size is %d", total, size);
+    }
+}
@@ -1,28 +1,63 @@
 package DataStructures;
 
 import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 import java.util.logging.Logger;
 
 /**
  * An implementation of a min-heap using an arraylist as the underlying data structure.  O(log n) time complexity
  * for both push() and pop() operations.
+ * Each slot of the heap carries a count of identical values, so repeated values can be pushed and popped in bulk
+ * with pushN() and popAll() without a slot per copy.
  *
  */
-public class Heap {
+public class Heap implements MinHeap {
     private static final Logger logger = Logger.getLogger(Logger.class.getName());
     private static final int rootIndex = 0;
     private int tailIndex = 0;
+    private int size = 0;
     private ArrayList<Integer> elements = new ArrayList<>();
+    // The number of copies of the value held in the slot with the same index in elements
+    private ArrayList<Integer> counts = new ArrayList<>();
 
     /**
      * Pushes the given value onto the heap and then performs necessary maintenance operations to maintain the heap
      * property.
      * @param value A value to insert into the heap
      */
+    @Override
     public void push(int value) {
-        elements.add(tailIndex, value);
-        upHeap(tailIndex);
-        tailIndex++;
+        pushN(value, 1);
+    }
+
+    /**
+     * Pushes n copies of the given value onto the heap at the cost of a single push.  When the value is already held
+     * by the root, or by the parent of the slot it would be appended to, the copies are merged into that slot instead.
+     * @param value A value to insert into the heap
+     * @param n The number of copies to insert
+     * @throws ArithmeticException If the heap would hold more than Integer.MAX_VALUE copies, leaving it unchanged
+     */
+    public void pushN(int value, int n) {
+        if (n < 0) {
+            throw new IllegalArgumentException("Cannot push a negative number of copies: " + n);
+        }
+        if (n == 0) {
+            return;
+        }
+        // Every slot count is at most the size, so checking the size first keeps both from overflowing
+        size = Math.addExact(size, n);
+        int parentIndex = getParentIndex(tailIndex);
+        if (tailIndex > rootIndex && elements.get(rootIndex) == value) {
+            counts.set(rootIndex, counts.get(rootIndex) + n);
+        } else if (parentIndex >= rootIndex && elements.get(parentIndex) == value) {
+            counts.set(parentIndex, counts.get(parentIndex) + n);
+        } else {
+            elements.add(tailIndex, value);
+            counts.add(tailIndex, n);
+            upHeap(tailIndex);
+            tailIndex++;
+        }
     }
 
     /**
@@ -30,26 +65,82 @@ public class Heap {
      * property.
      * @return The minimal element of the heap, or null if the heap is empty.
      */
+    @Override
     public Integer pop() {
         if (elements.isEmpty()) {
             return null;
         }
         int root = elements.get(rootIndex);
-        elements.set(rootIndex, elements.get(tailIndex - 1));
-        elements.remove(tailIndex - 1);
-        tailIndex--;
-        downHeap(0);
+        int count = counts.get(rootIndex);
+        if (count > 1) {
+            counts.set(rootIndex, count - 1);
+            size--;
+        } else {
+            removeRoot();
+        }
 
         return root;
     }
 
+    /**
+     * @return The minimal element of the heap without removing it, or null if the heap is empty.
+     */
+    @Override
+    public Integer peek() {
+        return elements.isEmpty() ? null : elements.get(rootIndex);
+    }
+
+    /**
+     * Pops every copy of the given value, provided it is the minimal element of the heap.  Copies spread over several
+     * slots all surface at the root one after the other, so each slot is removed with a single maintenance pass.
+     * @param value The value to pop every copy of
+     * @return The number of copies popped, which is 0 if the value is not the minimal element of the heap
+     */
+    public int popAll(int value) {
+        int popped = 0;
+        while (!elements.isEmpty() && elements.get(rootIndex) == value) {
+            popped += counts.get(rootIndex);
+            removeRoot();
+        }
+        return popped;
+    }
+
     /******* General Helper Methods *******/
 
+    /**
+     * @return The number of values in the heap, counting every copy of a repeated value
+     */
+    @Override
     public int size() {
-        return elements.size();
+        return size;
     }
 
-    private int getParentIndex(int n) {
+    /**
+     * Removes the root slot along with all of its copies, replacing it with the tail slot and burying that.
+     */
+    private void removeRoot() {
+        size -= counts.get(rootIndex);
+        elements.set(rootIndex, elements.get(tailIndex - 1));
+        counts.set(rootIndex, counts.get(tailIndex - 1));
+        elements.remove(tailIndex - 1);
+        counts.remove(tailIndex - 1);
+        tailIndex--;
+        downHeap(rootIndex);
+    }
+
+    /**
+     * Swaps the values, and their counts, held in two slots of the heap.
+     */
+    private void swap(int i, int j) {
+        Integer element = elements.get(i);
+        elements.set(i, elements.get(j));
+        elements.set(j, element);
+        Integer count = counts.get(i);
+        counts.set(i, counts.get(j));
+        counts.set(j, count);
+    }
+
+    private static int getParentIndex(int n) {
         return n % 2 == 1 ? n / 2 :  n / 2 - 1;
     }
 
@@ -64,8 +155,7 @@ public class Heap {
             int parent = elements.get(parentIndex);
             int current = elements.get(currentIndex);
             if (current < parent) {
-                elements.set(currentIndex, parent);
-                elements.set(parentIndex, current);
+                swap(currentIndex, parentIndex);
                 upHeap(parentIndex);
             }
         }
@@ -88,8 +178,7 @@ public class Heap {
         int smallerChild = elements.get(smallerChildIndex);
         int current = elements.get(currentIndex);
         if (current > smallerChild) {
-            elements.set(currentIndex, smallerChild);
-            elements.set(smallerChildIndex, current);
+            swap(currentIndex, smallerChildIndex);
         }
         downHeap(smallerChildIndex);
     }
@@ -108,6 +197,7 @@ public class Heap {
      * Validates the heap property at every element of the heap.
      */
     void validate() {
+        int total = 0;
         for (int i = elements.size() - 1; i >= 0; i--) {
             Integer element = elements.get(i);
             int parentIndex = getParentIndex(i);
@@ -115,6 +205,59 @@ public class Heap {
             assert element != null &&
                     (parentIndex < 0 || parent <= element)
                     : String.format("elements: %s\nelement: %s\nparent: %s", elements.toString(), element, parent);
+            assert counts.get(i) > 0 : String.format("counts: %s\nindex: %s", counts.toString(), i);
+            total += counts.get(i);
+        }
+        assert total == size : String.format("Counted %d values but size is %d", total, size);
+    }
+
+    /**
+     * Validates the same properties as validate(), splitting the slots of the heap into ranges which are validated in
+     * parallel by the common fork-join pool.  Each slot is only compared with its parent, so ranges are independent.
+     */
+    void validateParallel() {
+        long total = ForkJoinPool.commonPool().invoke(new ValidationTask(elements, counts, rootIndex, tailIndex));
+        assert total == size : String.format("Counted %d values but size is %d", total, size);
+    }
+
+    /**
+     * Validates a range of slots, halving it until it is small enough to validate sequentially, and returns the number
+     * of values held in the range.
+     */
+    private static class ValidationTask extends RecursiveTask<Long> {
+        private static final long serialVersionUID = 1L;
+        private static final int SEQUENTIAL_THRESHOLD = 1 << 13;
+        private final ArrayList<Integer> elements;
+        private final ArrayList<Integer> counts;
+        private final int from;
+        private final int to;
+
+        ValidationTask(ArrayList<Integer> elements, ArrayList<Integer> counts, int from, int to) {
+            this.elements = elements;
+            this.counts = counts;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Long compute() {
+            if (to - from <= SEQUENTIAL_THRESHOLD) {
+                long total = 0;
+                for (int i = from; i < to; i++) {
+                    int element = elements.get(i);
+                    int parentIndex = getParentIndex(i);
+                    assert parentIndex < rootIndex || elements.get(parentIndex) <= element
+                            : String.format("element %d at %d is below its parent %d", element, i, elements.get(parentIndex));
+                    assert counts.get(i) > 0 : String.format("No copies of element %d at %d", element, i);
+                    total += counts.get(i);
+                }
+                return total;
+            }
+            int middle = (from + to) >>> 1;
+            ValidationTask lower = new ValidationTask(elements, counts, from, middle);
+            lower.fork();
+            long upperTotal = new ValidationTask(elements, counts, middle, to).compute();
+            return lower.join() + upperTotal;
         }
     }
 
@@ -0,0 +1,44 @@
+package DataStructures;
+
+/**
+ * A red-black node holding a half-open interval [start, end).  The inherited data field holds the start of the
+ * interval, and max holds the largest end point found anywhere in this node's subtree.
+ */
+public class IntervalNode extends RedBlackNode {
+    int end;
+    int max;
+
+    IntervalNode() {
+        super();
+    }
+
+    IntervalNode(int start, int end) {
+        super(start);
+        this.end = end;
+        this.max = end;
+    }
+
+    int start() {
+        return data;
+    }
+
+    @Override
+    public IntervalNode parent() {
+        return (IntervalNode) parent;
+    }
+
+    @Override
+    public IntervalNode left() {
+        return (IntervalNode) left;
+    }
+
+    @Override
+    public IntervalNode right() {
+        return (IntervalNode) right;
+    }
+
+    @Override
+    public String toString() {
+        return data != null ? String.format("[%s, %s)max=%s(%s)", data.toString(), end, max, colour) : "LEAF";
+    }
+}
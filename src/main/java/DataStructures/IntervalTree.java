@@ -0,0 +1,414 @@
+package DataStructures;
+
+import java.util.logging.Logger;
+
+
+/**
+ *  Implementation of an interval tree on top of red-black tree balancing.  Each node holds a half-open interval
+ *  [start, end), ordered by start and then by end, and is augmented with the maximal end point of its subtree.  The
+ *  repairs are those of BalancingStrategy.RED_BLACK, whose only changes to the shape of the tree go through rotate(),
+ *  so the augmentation is kept up to date through every repair case, insertion and deletion stay O(log n), and
+ *  overlap queries only descend into subtrees that can still contain an overlapping interval.
+ *
+ *  A query reporting k intervals takes O(log n + k log(n/k)) time, not the O(log n + k) of a priority search tree:
+ *  the max end point of a subtree shows that it holds an overlapping interval, but not how deep, so the paths down
+ *  to the k reported intervals are walked in full wherever they do not share nodes.
+ *
+ */
+public class IntervalTree {
+    private static final Logger logger = Logger.getLogger(IntervalTree.class.getName());
+
+    private IntervalNode root;
+    private int size = 0;
+    // This is a sentinel node which plays the role of every null-leaf in the tree.
+    private final static IntervalNode LEAF = new IntervalNode();
+    // Lets the red-black repairs rotate the tree, fixing the max end points along the way
+    private final BalancingStrategy.Rotator rotator = this::rotateUp;
+
+    static {
+        LEAF.max = Integer.MIN_VALUE;
+    }
+
+    /**
+     * Receives the intervals reported by a query, one call per interval, without any intermediate allocation.
+     */
+    public interface IntervalVisitor {
+        void visit(int start, int end);
+    }
+
+    /*************** GENERAL HELPERS **********************/
+
+    /**
+     * @return The number of intervals stored in the tree
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Orders the interval [start, end) against a node's interval, first by start point and then by end point.
+     *
+     * @return A negative value, zero or a positive value as the interval is less than, equal to or greater than the
+     * node's interval
+     */
+    private static int compare(int start, int end, IntervalNode n) {
+        int byStart = Integer.compare(start, n.data);
+        return byStart != 0 ? byStart : Integer.compare(end, n.end);
+    }
+
+    /**
+     * Recomputes a node's max end point from its own interval and its children's augmentations.
+     *
+     * @param n Node whose children already hold correct max values
+     */
+    private static void updateMax(IntervalNode n) {
+        assert n != LEAF : "Trying to update the max of a LEAF.";
+        n.max = Math.max(n.end, Math.max(n.left().max, n.right().max));
+    }
+
+    /**
+     * Performs a tree rotation either leftward or rightward on the given node, then fixes the max end points of the
+     * two nodes whose subtrees changed.  Every other subtree keeps the same set of intervals.
+     *
+     * @param lead Node being rotated on
+     * @param toLeft Whether the desired rotation is leftward, false implies rightward
+     */
+    private void rotate(IntervalNode lead, boolean toLeft) {
+        assert lead != LEAF : "Trying to rotate on a LEAF as lead.";
+        IntervalNode parent = lead.parent();
+        IntervalNode centre = toLeft ? lead.right() : lead.left();
+        assert(centre != LEAF);
+
+        // Re-route the links touching the lead node
+        if (toLeft) {
+            lead.right = centre.left;
+            if (centre.left != null && centre.left != LEAF) {
+                centre.left.parent = lead;
+            }
+        } else {
+            lead.left = centre.right;
+            if (centre.right != null && centre.right != LEAF) {
+                centre.right.parent = lead;
+            }
+        }
+        lead.parent = centre;
+
+        // Re-route the links touching the centre node
+        centre.left = toLeft ? lead : centre.left;
+        centre.right = toLeft ? centre.right : lead;
+        centre.parent = parent;
+
+        // Re-assign the link from lead's original parent.
+        if (parent == null) {
+            root = centre;
+        } else {
+            assert lead == parent.left || lead == parent.right :
+                    String.format("rotate: Attempting rotate on %s but found inconsistent links with parent %s", lead, parent);
+            if (lead == parent.left) {
+                parent.left = centre;
+            } else {
+                parent.right = centre;
+            }
+        }
+
+        // Lead is now below centre, so it has to be fixed first.
+        updateMax(lead);
+        updateMax(centre);
+    }
+
+    /**
+     * Rotates the given node up above its parent.
+     */
+    private void rotateUp(RedBlackNode node) {
+        IntervalNode parent = (IntervalNode) node.parent;
+        rotate(parent, node == parent.right);
+    }
+
+    /************ SEARCH METHODS *********************/
+
+    /**
+     * Searches for the exact interval [start, end) in the tree
+     *
+     * @return Whether the interval was found in the tree or not
+     */
+    public boolean search(int start, int end) {
+        return find(start, end) != null;
+    }
+
+    private IntervalNode find(int start, int end) {
+        IntervalNode current = root;
+        while (current != null && current != LEAF) {
+            int comparison = compare(start, end, current);
+            if (comparison == 0) {
+                return current;
+            }
+            current = comparison > 0 ? current.right() : current.left();
+        }
+        return null;
+    }
+
+    /**
+     * Reports every interval containing the given point, ie. every [start, end) with start <= point < end.
+     *
+     * @param point The point to stab the stored intervals with
+     * @param visitor Receives each interval containing the point
+     * @return The number of intervals reported
+     */
+    public int stab(int point, IntervalVisitor visitor) {
+        return overlapRec(root, point, point, visitor);
+    }
+
+    /**
+     * Reports every interval overlapping the half-open query interval [start, end).  An empty query overlaps nothing.
+     *
+     * @param start Start of the query interval, inclusive
+     * @param end End of the query interval, exclusive
+     * @param visitor Receives each overlapping interval
+     * @return The number of intervals reported
+     */
+    public int overlap(int start, int end, IntervalVisitor visitor) {
+        if (start >= end) {
+            return 0;
+        }
+        return overlapRec(root, start, end - 1, visitor);
+    }
+
+    /**
+     * Reports, in order, the intervals of a subtree that end after low and start no later than high.
+     * A subtree is skipped entirely when its max end point shows no interval in it can reach past low, and the right
+     * subtree is skipped as soon as a node starts beyond high.  Every node entered is either an ancestor of a reported
+     * interval or on the search path for high, and the ancestors of k nodes of a balanced tree number
+     * O(k log(n/k)), bounding the work by O(log n + k log(n/k)).
+     *
+     * @param root Root of the subtree to search through
+     * @param low Every reported interval must end strictly after this point
+     * @param high Every reported interval must start at or before this point
+     * @param visitor Receives each overlapping interval
+     * @return The number of intervals reported from this subtree
+     */
+    private int overlapRec(IntervalNode root, int low, int high, IntervalVisitor visitor) {
+        if (root == null || root == LEAF || root.max <= low) {
+            return 0;
+        }
+        int found = overlapRec(root.left(), low, high, visitor);
+        if (root.data <= high) {
+            if (root.end > low) {
+                visitor.visit(root.data, root.end);
+                found++;
+            }
+            found += overlapRec(root.right(), low, high, visitor);
+        }
+        return found;
+    }
+
+    /************ INSERT METHODS *********************/
+
+    /**
+     * If the given interval does not already exist in the tree, inserts it.
+     *
+     * @param start Start of the interval, inclusive
+     * @param end End of the interval, exclusive
+     * @return true if the interval was inserted, false if it was already in the tree
+     */
+    public boolean insert(int start, int end) {
+        if (end <= start) {
+            throw new IllegalArgumentException(String.format("Interval [%d, %d) is empty", start, end));
+        }
+        IntervalNode n = new IntervalNode(start, end);
+        // Performs a simple binary search tree insertion
+        if (!insertRec(root, n)) {
+            return false;
+        }
+        // Every ancestor now covers the new interval as well
+        for (IntervalNode ancestor = n.parent(); ancestor != null && ancestor.max < end; ancestor = ancestor.parent()) {
+            ancestor.max = end;
+        }
+        // Repair any red-black tree conditions that were broken by the insertion
+        if (n.parent == null) {
+            root = n;
+        }
+        BalancingStrategy.RED_BLACK.afterInsert(rotator, n);
+        size++;
+        return true;
+    }
+
+    /**
+     * Performs a simple binary search tree insertion without regard for red-black tree conditions
+     *
+     * @param root Root of the subtree to perform the insertion on
+     * @param n Node to be inserted
+     * @return true if the insertion was successful, false if the given interval was already included in the tree
+     */
+    private boolean insertRec(IntervalNode root, IntervalNode n) {
+        if (root != null) {
+            int comparison = compare(n.data, n.end, root);
+            if (comparison == 0) {
+                return false;
+            } else if (comparison > 0) {
+                if (root.right == LEAF) {
+                    root.right = n;
+                } else {
+                    return insertRec(root.right(), n);
+                }
+            } else {
+                if (root.left == LEAF) {
+                    root.left = n;
+                } else {
+                    return insertRec(root.left(), n);
+                }
+            }
+        }
+
+        n.parent = root;
+        n.left = LEAF;
+        n.right = LEAF;
+        return true;
+    }
+
+    /************ DELETE METHODS *********/
+
+    /**
+     * Deletes the interval [start, end) from the tree, if it exists, and maintains all red-black tree properties
+     *
+     * @return true if the interval was found and deleted
+     */
+    public boolean delete(int start, int end) {
+        IntervalNode current = find(start, end);
+        if (current == null) {
+            logger.fine(String.format("Interval [%d, %d) not found.  Nothing to delete", start, end));
+            return false;
+        }
+
+        if (current.left != LEAF && current.right != LEAF) {
+            // The delete candidate is an internal node, so move its in-order predecessor's interval into it and
+            // delete the predecessor instead.
+            IntervalNode swapNode = current.left();
+            while (swapNode.right != LEAF) {
+                swapNode = swapNode.right();
+            }
+            current.data = swapNode.data;
+            current.end = swapNode.end;
+            deleteOneChild(swapNode);
+        } else {
+            deleteOneChild(current);
+        }
+        size--;
+        return true;
+    }
+
+    /**
+     * Delete a node that has at most one non-leaf child, refreshing the max end points of every ancestor before
+     * running the red-black repairs.
+     *
+     * @param toDelete Node to be deleted
+     */
+    private void deleteOneChild(IntervalNode toDelete) {
+        assert toDelete != LEAF;
+        IntervalNode child = toDelete.right == LEAF ? toDelete.left() : toDelete.right();
+
+        // substitute child into toDelete's place in the tree
+        IntervalNode parent = toDelete.parent();
+        boolean left = parent != null && toDelete == parent.left;
+        if (parent == null) {
+            root = child != LEAF ? child : null;
+        } else {
+            if (left) {
+                parent.left = child;
+            } else {
+                parent.right = child;
+            }
+        }
+        if (child != LEAF) {
+            child.parent = parent;
+        }
+
+        // The removed interval, and possibly one swapped into an ancestor, may have set the max along this path.
+        for (IntervalNode ancestor = parent; ancestor != null; ancestor = ancestor.parent()) {
+            updateMax(ancestor);
+        }
+
+        BalancingStrategy.RED_BLACK.afterDelete(rotator, parent, left, child, toDelete);
+    }
+
+    /************ TESTING METHODS *******/
+
+    /**
+     * Validates the red-black properties of the tree, the ordering of its intervals and that every node's max
+     * equals the largest end point in its subtree.  The tree is walked in order by following parent links instead of
+     * recursing, like RedBlackTree.validate(), so that the memory used does not depend on the size or depth of the
+     * tree.  Consecutive intervals of the walk are checked against each other, and the black depth of every node with
+     * a LEAF child gives the black-height of each path.
+     */
+    void validate() {
+        assert root != LEAF;
+        assert root == null || root.colour == RedBlackNode.Colour.BLACK;
+        if (root == null) {
+            assert size == 0 : "Empty tree of size " + size;
+            return;
+        }
+
+        int count = 0;
+        int blackHeight = -1;
+        IntervalNode previous = null;
+        // The number of black nodes from the root down to current, both included
+        int blackDepth = root.colour.getValue();
+        IntervalNode current = root;
+        while (current.left != LEAF) {
+            current = current.left();
+            blackDepth += current.colour.getValue();
+        }
+
+        while (true) {
+            count++;
+            validateNode(current);
+            assert previous == null || compare(current.data, current.end, previous) > 0 :
+                    current + " does not follow " + previous;
+            previous = current;
+            if (current.left == LEAF || current.right == LEAF) {
+                if (blackHeight == -1) {
+                    blackHeight = blackDepth + LEAF.colour.getValue();
+                }
+                assert blackDepth + LEAF.colour.getValue() == blackHeight :
+                        String.format("Non-matching black-heights below %s: %d and %d", current, blackHeight,
+                                blackDepth + LEAF.colour.getValue());
+            }
+
+            // Step to the in-order successor
+            if (current.right != LEAF) {
+                current = current.right();
+                blackDepth += current.colour.getValue();
+                while (current.left != LEAF) {
+                    current = current.left();
+                    blackDepth += current.colour.getValue();
+                }
+            } else {
+                while (current != root && current == current.parent.right) {
+                    blackDepth -= current.colour.getValue();
+                    current = current.parent();
+                }
+                if (current == root) {
+                    break;
+                }
+                blackDepth -= current.colour.getValue();
+                current = current.parent();
+            }
+        }
+        assert count == size : String.format("Counted %d intervals but size is %d", count, size);
+    }
+
+    /**
+     * Validates the properties of the tree that only concern a node and its immediate neighbours.
+     *
+     * @param n Node to validate
+     */
+    private static void validateNode(IntervalNode n) {
+        assert n.parent == null || n.parent.left == n || n.parent.right == n :
+                String.format("validateNode: %s shows parent as %s", n, n.parent);
+        assert n.end > n.data : "Empty interval stored " + n;
+        assert n.max == Math.max(n.end, Math.max(n.left().max, n.right().max)) : "Stale max at " + n;
+        if (n.colour == RedBlackNode.Colour.RED) {
+            assert n.left().colour == RedBlackNode.Colour.BLACK && n.right().colour == RedBlackNode.Colour.BLACK :
+                    "Red node with a red child " + n;
+        }
+    }
+}
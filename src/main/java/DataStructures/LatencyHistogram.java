@@ -0,0 +1,108 @@
+package DataStructures;
+
+/**
+ * A fixed-size histogram of latencies, or of any non-negative long values, with log-linear buckets: every power of
+ * two range is split into 2^PRECISION_BITS equal buckets, so each recorded value is kept within about 3% of its true
+ * value.  Recording is a few shifts and an array increment, with no allocation.
+ *
+ */
+public class LatencyHistogram {
+    private static final int PRECISION_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << PRECISION_BITS;
+    // Values below SUB_BUCKETS get a bucket each, then every further power of two gets SUB_BUCKETS buckets
+    private static final int BUCKETS = (64 - PRECISION_BITS) * SUB_BUCKETS;
+
+    private final long[] counts = new long[BUCKETS];
+    private long total = 0;
+    private long min = Long.MAX_VALUE;
+    private long max = Long.MIN_VALUE;
+
+    /**
+     * Records a single value.
+     *
+     * @param value Non-negative value to record, eg. a latency in nanoseconds
+     */
+    public void record(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+        counts[bucketOf(value)]++;
+        total++;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    /**
+     * Estimates the value below which the given fraction of the recorded values fall.
+     *
+     * @param percentile The fraction of recorded values, between 0 and 100, eg. 99.9
+     * @return The highest value of the bucket holding that percentile, capped by the largest value recorded, or 0 if
+     * nothing was recorded
+     */
+    public long percentile(double percentile) {
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+        long seen = 0;
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            seen += counts[bucket];
+            if (seen >= rank) {
+                return Math.min(max, highestValueOf(bucket));
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Adds every value recorded by another histogram to this one.
+     */
+    public void add(LatencyHistogram other) {
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            counts[bucket] += other.counts[bucket];
+        }
+        total += other.total;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    public long getCount() {
+        return total;
+    }
+
+    /**
+     * @return The smallest value recorded, or 0 if nothing was recorded
+     */
+    public long getMin() {
+        return total == 0 ? 0 : min;
+    }
+
+    /**
+     * @return The largest value recorded, or 0 if nothing was recorded
+     */
+    public long getMax() {
+        return total == 0 ? 0 : max;
+    }
+
+    /******* General Helper Methods *******/
+
+    static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - PRECISION_BITS;
+        // The top PRECISION_BITS + 1 bits of the value, whose leading bit is always set
+        int mantissa = (int) (value >>> shift);
+        return (shift + 1) * SUB_BUCKETS + (mantissa - SUB_BUCKETS);
+    }
+
+    static long highestValueOf(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        long mantissa = SUB_BUCKETS + bucket % SUB_BUCKETS;
+        return ((mantissa + 1) << shift) - 1;
+    }
+}
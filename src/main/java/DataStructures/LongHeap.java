@@ -0,0 +1,122 @@
+package DataStructures;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * A min-heap of long values stored in a primitive array, so that no value is ever boxed.  O(log n) time complexity
+ * for both push() and pop() operations.  Unlike Heap, popping or peeking into an empty heap throws, since there is no
+ * null long to return.
+ *
+ */
+public class LongHeap {
+    private static final int rootIndex = 0;
+    private static final int INITIAL_CAPACITY = 16;
+
+    private long[] elements = new long[INITIAL_CAPACITY];
+    private int size = 0;
+
+    /**
+     * Pushes the given value onto the heap, moving it up until the heap property holds again.
+     * @param value A value to insert into the heap
+     */
+    public void push(long value) {
+        if (size == elements.length) {
+            elements = Arrays.copyOf(elements, size * 2);
+        }
+        upHeap(size++, value);
+    }
+
+    /**
+     * Pops the minimal element of the heap, moving the last element down from the root to fill its place.
+     * @return The minimal element of the heap
+     * @throws NoSuchElementException If the heap is empty
+     */
+    public long pop() {
+        if (size == 0) {
+            throw new NoSuchElementException("Popping from an empty heap");
+        }
+        long root = elements[rootIndex];
+        size--;
+        long last = elements[size];
+        if (size > rootIndex) {
+            downHeap(rootIndex, last);
+        }
+        return root;
+    }
+
+    /**
+     * @return The minimal element of the heap without removing it
+     * @throws NoSuchElementException If the heap is empty
+     */
+    public long peek() {
+        if (size == 0) {
+            throw new NoSuchElementException("Peeking into an empty heap");
+        }
+        return elements[rootIndex];
+    }
+
+    /**
+     * @return The number of values in the heap
+     */
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /******* General Helper Methods *******/
+
+    /**
+     * Moves the hole at the given index upwards, shifting parents down into it, until the value can be placed in it
+     * without breaking the heap property.
+     */
+    private void upHeap(int hole, long value) {
+        while (hole > rootIndex) {
+            int parent = (hole - 1) / 2;
+            if (value >= elements[parent]) {
+                break;
+            }
+            elements[hole] = elements[parent];
+            hole = parent;
+        }
+        elements[hole] = value;
+    }
+
+    /**
+     * Moves the hole at the given index downwards, shifting the smaller child up into it, until the value can be
+     * placed in it without breaking the heap property.
+     */
+    private void downHeap(int hole, long value) {
+        while (true) {
+            int child = hole * 2 + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && elements[child + 1] < elements[child]) {
+                child++;
+            }
+            if (elements[child] >= value) {
+                break;
+            }
+            elements[hole] = elements[child];
+            hole = child;
+        }
+        elements[hole] = value;
+    }
+
+    /********* TEST METHODS **************/
+
+    /**
+     * Validates the heap property at every element of the heap.
+     */
+    void validate() {
+        for (int i = size - 1; i > rootIndex; i--) {
+            int parent = (i - 1) / 2;
+            assert elements[i] >= elements[parent] :
+                    String.format("%s at %d is smaller than its parent %s", elements[i], i, elements[parent]);
+        }
+    }
+}
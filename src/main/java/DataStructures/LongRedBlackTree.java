@@ -0,0 +1,287 @@
+package DataStructures;
+
+/**
+ * A balanced search tree of long keys, held in primitive fields of its nodes so that no key is ever boxed.  Like
+ * IntervalTree, it only does the searching and the splicing of nodes itself, and leaves the balancing to a
+ * BalancingStrategy, red-black by default, which rotates the tree through rotateUp().  Search, insertion and deletion
+ * are all performed in O(log n) time.
+ *
+ * It is a plain set: unlike RedBlackTree it has no multiset counts, no finger or batch operations and no freeze().
+ *
+ */
+public class LongRedBlackTree {
+    private Node root;
+    private int size = 0;
+    // This is a sentinel node which plays the role of every null-leaf in the tree.
+    private static final Node LEAF = new Node();
+    // The rules the tree is kept balanced by
+    private final BalancingStrategy strategy;
+    // Lets the strategy rotate the tree without exposing rotations outside of it
+    private final BalancingStrategy.Rotator rotator = this::rotateUp;
+
+    public LongRedBlackTree() {
+        this(BalancingStrategy.RED_BLACK);
+    }
+
+    /**
+     * @param strategy The rules the tree is kept balanced by
+     */
+    public LongRedBlackTree(BalancingStrategy strategy) {
+        if (strategy == null) {
+            throw new NullPointerException("strategy");
+        }
+        this.strategy = strategy;
+    }
+
+    /*************** GENERAL HELPERS **********************/
+
+    /**
+     * A node holding a long key.  The inherited data field is left null, so the sentinel is told apart by identity.
+     */
+    private static final class Node extends RedBlackNode {
+        long key;
+
+        Node() {
+            super();
+        }
+
+        Node(long key) {
+            super();
+            this.key = key;
+            this.rank = 0;
+        }
+
+        @Override
+        boolean isSentinel() {
+            return this == LEAF;
+        }
+
+        @Override
+        public Node parent() {
+            return (Node) parent;
+        }
+
+        @Override
+        public Node left() {
+            return (Node) left;
+        }
+
+        @Override
+        public Node right() {
+            return (Node) right;
+        }
+
+        @Override
+        public String toString() {
+            return isSentinel() ? "LEAF" : String.format("%d(%s, %d)", key, colour, rank);
+        }
+    }
+
+    /**
+     * Rotates the given node up above its parent.
+     */
+    private void rotateUp(RedBlackNode rotated) {
+        Node node = (Node) rotated;
+        Node parent = node.parent();
+        Node grandParent = parent.parent();
+        if (node == parent.left) {
+            parent.left = node.right;
+            if (node.right != LEAF) {
+                node.right.parent = parent;
+            }
+            node.right = parent;
+        } else {
+            parent.right = node.left;
+            if (node.left != LEAF) {
+                node.left.parent = parent;
+            }
+            node.left = parent;
+        }
+        parent.parent = node;
+        node.parent = grandParent;
+        replaceChild(grandParent, parent, node);
+    }
+
+    /**
+     * Links a node, or LEAF, in place of one of the parent's children, or as the root if there is no parent.
+     */
+    private void replaceChild(Node parent, Node oldChild, Node newChild) {
+        if (parent == null) {
+            root = newChild != LEAF ? newChild : null;
+        } else if (oldChild == parent.left) {
+            parent.left = newChild;
+        } else {
+            parent.right = newChild;
+        }
+    }
+
+    public BalancingStrategy getStrategy() {
+        return strategy;
+    }
+
+    /**
+     * @return The number of keys in the tree
+     */
+    public int size() {
+        return size;
+    }
+
+    /************ SEARCH METHODS *********************/
+
+    /**
+     * Searches for a given key in the tree.
+     *
+     * @param key Key to search for
+     * @return true if the key was found, false otherwise
+     */
+    public boolean search(long key) {
+        return findNode(key) != null;
+    }
+
+    private Node findNode(long key) {
+        Node node = root;
+        while (node != null && node != LEAF) {
+            if (key == node.key) {
+                return node;
+            }
+            node = key < node.key ? node.left() : node.right();
+        }
+        return null;
+    }
+
+    /*************** INSERTION METHODS **********************/
+
+    /**
+     * Inserts the given key as a new leaf, then lets the strategy rotate the tree back into balance.
+     *
+     * @param key Key to insert
+     * @return true if the key was inserted, false if an equal key was already in the tree
+     */
+    public boolean insert(long key) {
+        Node parent = null;
+        Node node = root;
+        boolean left = false;
+        while (node != null && node != LEAF) {
+            if (key == node.key) {
+                return false;
+            }
+            parent = node;
+            left = key < node.key;
+            node = left ? node.left() : node.right();
+        }
+        node = new Node(key);
+        node.parent = parent;
+        node.left = LEAF;
+        node.right = LEAF;
+        if (parent == null) {
+            root = node;
+        } else if (left) {
+            parent.left = node;
+        } else {
+            parent.right = node;
+        }
+        size++;
+        strategy.afterInsert(rotator, node);
+        return true;
+    }
+
+    /*************** DELETION METHODS **********************/
+
+    /**
+     * Deletes the given key from the tree.  A node with two children takes the key of its in-order successor, and
+     * the successor, which has at most one child, is spliced out instead before the strategy repairs the balance.
+     *
+     * @param key Key to delete
+     * @return true if the key was deleted, false if it was not in the tree
+     */
+    public boolean delete(long key) {
+        Node node = findNode(key);
+        if (node == null) {
+            return false;
+        }
+        if (node.left != LEAF && node.right != LEAF) {
+            Node successor = node.right();
+            while (successor.left != LEAF) {
+                successor = successor.left();
+            }
+            node.key = successor.key;
+            node = successor;
+        }
+
+        Node child = node.left != LEAF ? node.left() : node.right();
+        Node parent = node.parent();
+        boolean left = parent != null && node == parent.left;
+        if (child != LEAF) {
+            child.parent = parent;
+        }
+        replaceChild(parent, node, child);
+        size--;
+        strategy.afterDelete(rotator, parent, left, child, node);
+        return true;
+    }
+
+    /********* TEST METHODS **************/
+
+    /**
+     * Validates the ordering of the keys, the parent links, the size of the tree and the rules of its strategy.  The
+     * tree is walked in order by following parent links, like RedBlackTree.validate(), so that the memory used does
+     * not depend on the size or depth of the tree.
+     */
+    public void validate() {
+        assert root != LEAF;
+        if (root == null) {
+            assert size == 0 : "Empty tree of size " + size;
+            return;
+        }
+        assert root.parent == null : "The root has a parent";
+
+        int counted = 0;
+        int pathWeight = -1;
+        int leafWeight = strategy.pathWeight(LEAF);
+        Node previous = null;
+        // The weight of the nodes from the root down to current, both included
+        int depthWeight = strategy.pathWeight(root);
+        Node current = root;
+        while (current.left != LEAF) {
+            current = current.left();
+            depthWeight += strategy.pathWeight(current);
+        }
+
+        while (true) {
+            counted++;
+            assert current.left == LEAF || current.left.parent == current : "Broken parent link below " + current;
+            assert current.right == LEAF || current.right.parent == current : "Broken parent link below " + current;
+            assert previous == null || previous.key < current.key : current + " follows " + previous + " in order";
+            strategy.validateNode(current);
+            previous = current;
+            if (current.left == LEAF || current.right == LEAF) {
+                if (pathWeight == -1) {
+                    pathWeight = depthWeight + leafWeight;
+                }
+                assert depthWeight + leafWeight == pathWeight :
+                        String.format("Non-matching path weights below %s: %d and %d", current, pathWeight, depthWeight + leafWeight);
+            }
+
+            // Step to the in-order successor
+            if (current.right != LEAF) {
+                current = current.right();
+                depthWeight += strategy.pathWeight(current);
+                while (current.left != LEAF) {
+                    current = current.left();
+                    depthWeight += strategy.pathWeight(current);
+                }
+            } else {
+                while (current != root && current == current.parent.right) {
+                    depthWeight -= strategy.pathWeight(current);
+                    current = current.parent();
+                }
+                if (current == root) {
+                    break;
+                }
+                depthWeight -= strategy.pathWeight(current);
+                current = current.parent();
+            }
+        }
+        assert counted == size : String.format("Counted %d nodes but the size is %d", counted, size);
+    }
+}
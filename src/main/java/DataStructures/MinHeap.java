@@ -0,0 +1,29 @@
+package DataStructures;
+
+/**
+ * The push/pop contract shared by the min-heaps of this package, so that algorithms such as Dijkstra's and the
+ * workload traces can run against any of them.
+ */
+public interface MinHeap {
+
+    /**
+     * Pushes the given value onto the heap.
+     */
+    void push(int value);
+
+    /**
+     * Pops the minimal element of the heap.
+     * @return The minimal element of the heap, or null if the heap is empty.
+     */
+    Integer pop();
+
+    /**
+     * @return The minimal element of the heap without removing it, or null if the heap is empty.
+     */
+    Integer peek();
+
+    /**
+     * @return The number of values in the heap, counting every copy of a repeated value
+     */
+    int size();
+}
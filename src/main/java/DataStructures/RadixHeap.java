@@ -0,0 +1,148 @@
+package DataStructures;
+
+import java.util.Arrays;
+
+/**
+ * A monotone min-heap of int values, for workloads such as Dijkstra's algorithm where the popped minimums never
+ * decrease.  Every pushed value must be at least the last value popped.
+ *
+ * Values are kept in buckets indexed by the highest bit in which they differ from the last popped minimum, bucket 0
+ * holding the copies of the minimum itself.  push() is O(1) and pop() takes no comparisons while bucket 0 is not
+ * empty.  Once it is, the lowest non-empty bucket is scanned for its minimum and its values spread over the buckets
+ * below it.  A value can only ever move to a lower bucket, so pops take amortized O(log C) time, where C is the
+ * spread between the values held at once.
+ *
+ */
+public class RadixHeap implements MinHeap {
+    // Bucket 0 holds copies of the last minimum, and bucket b values whose highest bit differing from it is b - 1
+    private static final int BUCKET_COUNT = Integer.SIZE + 1;
+    private static final int INITIAL_CAPACITY = 8;
+
+    private final int[][] buckets = new int[BUCKET_COUNT][];
+    private final int[] bucketSizes = new int[BUCKET_COUNT];
+    private int last = Integer.MIN_VALUE;
+    private int size = 0;
+
+    public RadixHeap() {
+        for (int b = 0; b < BUCKET_COUNT; b++) {
+            buckets[b] = new int[INITIAL_CAPACITY];
+        }
+    }
+
+    /**
+     * Pushes the given value onto the heap.
+     * @param value A value no smaller than the last value popped
+     */
+    @Override
+    public void push(int value) {
+        assert value >= last : String.format("Pushed %d after popping %d breaks the monotone contract", value, last);
+        add(bucketOf(value), value);
+        size++;
+    }
+
+    /**
+     * Pops the minimal element of the heap, which becomes the lower bound of every value pushed afterwards.
+     * @return The minimal element of the heap, or null if the heap is empty.
+     */
+    @Override
+    public Integer pop() {
+        if (size == 0) {
+            return null;
+        }
+        if (bucketSizes[0] == 0) {
+            redistribute();
+        }
+        bucketSizes[0]--;
+        size--;
+        return last;
+    }
+
+    /**
+     * Returns the minimal element without moving the lower bound of pushes, which costs a scan of the lowest non-empty
+     * bucket when no copy of the last minimum is left.
+     * @return The minimal element of the heap without removing it, or null if the heap is empty.
+     */
+    @Override
+    public Integer peek() {
+        if (size == 0) {
+            return null;
+        }
+        if (bucketSizes[0] > 0) {
+            return last;
+        }
+        int b = lowestNonEmptyBucket();
+        return minimum(buckets[b], bucketSizes[b]);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /******* General Helper Methods *******/
+
+    /**
+     * The highest differing bit of two ints is the same whether they are read as signed or unsigned, and every value
+     * held is at least the last minimum, so the bucket index alone orders values of different buckets.
+     */
+    private int bucketOf(int value) {
+        return Integer.SIZE - Integer.numberOfLeadingZeros(value ^ last);
+    }
+
+    private void add(int b, int value) {
+        if (bucketSizes[b] == buckets[b].length) {
+            buckets[b] = Arrays.copyOf(buckets[b], bucketSizes[b] * 2);
+        }
+        buckets[b][bucketSizes[b]++] = value;
+    }
+
+    private int lowestNonEmptyBucket() {
+        int b = 1;
+        while (bucketSizes[b] == 0) {
+            b++;
+        }
+        return b;
+    }
+
+    private static int minimum(int[] values, int count) {
+        int min = values[0];
+        for (int i = 1; i < count; i++) {
+            min = Math.min(min, values[i]);
+        }
+        return min;
+    }
+
+    /**
+     * Makes the minimum of the lowest non-empty bucket the new last minimum and spreads that bucket over the buckets
+     * below it.  Every other value in it now differs from the new minimum in a lower bit than the bucket's.
+     */
+    private void redistribute() {
+        int b = lowestNonEmptyBucket();
+        int[] values = buckets[b];
+        int count = bucketSizes[b];
+        last = minimum(values, count);
+        bucketSizes[b] = 0;
+        for (int i = 0; i < count; i++) {
+            add(bucketOf(values[i]), values[i]);
+        }
+    }
+
+    /********* TEST METHODS **************/
+
+    /**
+     * Validates that every value is at least the last minimum and sits in the bucket of its highest differing bit,
+     * and that the bucket sizes add up to the size of the heap.
+     */
+    void validate() {
+        int total = 0;
+        for (int b = 0; b < BUCKET_COUNT; b++) {
+            for (int i = 0; i < bucketSizes[b]; i++) {
+                int value = buckets[b][i];
+                assert value >= last : String.format("%d is smaller than the last minimum %d", value, last);
+                assert bucketOf(value) == b : String.format("%d is in bucket %d instead of %d", value, b, bucketOf(value));
+            }
+            total += bucketSizes[b];
+        }
+        assert total == size : String.format("Buckets hold %d values but the size is %d", total, size);
+    }
+}
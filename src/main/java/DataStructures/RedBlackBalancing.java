@@ -0,0 +1,209 @@
+package DataStructures;
+
+/**
+ * Red-black balancing, where every node is either red or black and:
+ *
+ *  1. The root is black.
+ *  2. All leaves (LEAF) are black.
+ *  3. If a node is red, then both its children are black.
+ *  4. Every path from a given node to any of its descendant LEAF nodes contains the same number of black nodes.
+ *
+ * An insertion needs at most two rotations and a deletion at most three, but a path may be up to twice as long as
+ * another.
+ *
+ * The rank of a node is the number of black nodes, LEAF excluded, on every path from one of its children down to a
+ * LEAF, which gives a new node rank 0 and a LEAF rank -1 like the other strategies.  It only changes where the
+ * colours below a node change, so the repairs keep it up to date along the way, and join() compares the black heights
+ * of two trees without walking down them.
+ *
+ */
+class RedBlackBalancing extends BalancingStrategy {
+
+    @Override
+    boolean isRed(RedBlackNode node) {
+        return node != null && node.colour == RedBlackNode.Colour.RED;
+    }
+
+    /**
+     * Colours the new node red, then climbs while both it and its parent are red.  A red uncle is recoloured along
+     * with the parent and grandparent, which moves the problem up to the grandparent, while a black uncle is resolved
+     * by at most two rotations.
+     */
+    @Override
+    void afterInsert(Rotator tree, RedBlackNode node) {
+        node.colour = RedBlackNode.Colour.RED;
+        while (true) {
+            RedBlackNode parent = node.parent();
+            if (parent == null) {
+                node.colour = RedBlackNode.Colour.BLACK;
+                return;
+            }
+            if (!isRed(parent)) {
+                return;
+            }
+            // A red parent is never the root, so the grandparent exists
+            RedBlackNode grandParent = parent.parent();
+            RedBlackNode uncle = parent.getSibling();
+            if (isRed(uncle)) {
+                parent.colour = RedBlackNode.Colour.BLACK;
+                uncle.colour = RedBlackNode.Colour.BLACK;
+                grandParent.colour = RedBlackNode.Colour.RED;
+                // Both children of the grandparent are black now
+                grandParent.rank++;
+                node = grandParent;
+                continue;
+            }
+
+            // If node is on the "inside" of the subtree, rotate it to the outside first
+            boolean parentIsLeft = parent == grandParent.left;
+            RedBlackNode lower = parent;
+            if ((node == parent.left) != parentIsLeft) {
+                tree.rotateUp(node);
+                parent = node;
+            }
+            tree.rotateUp(parent);
+            parent.colour = RedBlackNode.Colour.BLACK;
+            grandParent.colour = RedBlackNode.Colour.RED;
+            updateRank(lower, true);
+            updateRank(grandParent, true);
+            updateRank(parent, true);
+            return;
+        }
+    }
+
+    /**
+     * Removing a black node leaves every path through its place one black node short.  The repair climbs until a red
+     * node can be blackened, or until a rotation borrows a black node from the sibling's side.
+     */
+    @Override
+    void afterDelete(Rotator tree, RedBlackNode parent, boolean left, RedBlackNode child, RedBlackNode removed) {
+        if (isRed(removed)) {
+            return;
+        }
+        RedBlackNode node = child;
+        while (parent != null && !isRed(node)) {
+            // A red sibling is rotated above the parent, so that node gets a black sibling
+            RedBlackNode sibling = parent.child(!left);
+            if (isRed(sibling)) {
+                sibling.colour = RedBlackNode.Colour.BLACK;
+                parent.colour = RedBlackNode.Colour.RED;
+                tree.rotateUp(sibling);
+                updateRank(parent, !left);
+                updateRank(sibling, !left);
+                sibling = parent.child(!left);
+            }
+
+            // With both nephews black, the sibling's side gives up a black node too and the problem moves up
+            RedBlackNode near = sibling.child(left);
+            RedBlackNode far = sibling.child(!left);
+            if (!isRed(near) && !isRed(far)) {
+                sibling.colour = RedBlackNode.Colour.RED;
+                parent.rank--;
+                node = parent;
+                parent = node.parent();
+                left = parent != null && node == parent.left;
+                continue;
+            }
+
+            // Otherwise make the far nephew red, then rotate the sibling above the parent and recolour
+            if (!isRed(far)) {
+                near.colour = RedBlackNode.Colour.BLACK;
+                sibling.colour = RedBlackNode.Colour.RED;
+                tree.rotateUp(near);
+                far = sibling;
+                sibling = near;
+            }
+            sibling.colour = parent.colour;
+            parent.colour = RedBlackNode.Colour.BLACK;
+            far.colour = RedBlackNode.Colour.BLACK;
+            tree.rotateUp(sibling);
+            updateRank(parent, !left);
+            updateRank(far, !left);
+            updateRank(sibling, !left);
+            return;
+        }
+        if (isRed(node)) {
+            node.colour = RedBlackNode.Colour.BLACK;
+        }
+    }
+
+    /**
+     * Recomputes the rank of a node from one of its children.  While a deletion is being repaired, only the side away
+     * from the removed node still has the right black height.
+     */
+    private void updateRank(RedBlackNode node, boolean left) {
+        RedBlackNode child = node.child(left);
+        node.rank = child.rank + (isRed(child) ? 0 : 1);
+    }
+
+    /**
+     * Makes the middle node red and hangs it from the first black node of the right black height on the facing spine
+     * of the taller tree, so that only property 3 can be broken, then repairs it like an insertion.
+     */
+    @Override
+    RedBlackNode join(Rotator tree, RedBlackNode left, RedBlackNode middle, RedBlackNode right) {
+        // With black roots the middle node can be red below any black node of the same black height
+        blackenRoot(left);
+        blackenRoot(right);
+        int leftHeight = left.rank + 1;
+        int rightHeight = right.rank + 1;
+        if (leftHeight == rightHeight) {
+            middle.colour = RedBlackNode.Colour.BLACK;
+            middle.rank = leftHeight;
+            return link(null, false, middle, left, right);
+        }
+
+        boolean leftTaller = leftHeight > rightHeight;
+        RedBlackNode taller = leftTaller ? left : right;
+        RedBlackNode shorter = leftTaller ? right : left;
+        int height = shorter.rank + 1;
+        RedBlackNode parent = null;
+        RedBlackNode node = taller;
+        while (isRed(node) || node.rank + 1 > height) {
+            parent = node;
+            node = node.child(!leftTaller);
+        }
+        middle.rank = height;
+        link(parent, !leftTaller, middle, leftTaller ? node : shorter, leftTaller ? shorter : node);
+        afterInsert(tree, middle);
+        return topOf(taller);
+    }
+
+    @Override
+    int rankAbove(RedBlackNode node) {
+        RedBlackNode child = node.left();
+        return child.rank + (isRed(child) ? 0 : 1);
+    }
+
+    private static void blackenRoot(RedBlackNode root) {
+        if (!root.isSentinel()) {
+            root.colour = RedBlackNode.Colour.BLACK;
+        }
+    }
+
+    @Override
+    void validateNode(RedBlackNode node) {
+        assert node.colour == RedBlackNode.Colour.BLACK || node.colour == RedBlackNode.Colour.RED;
+        // Property 1
+        assert node.parent != null || !isRed(node) : "The root must be black " + node;
+        // Property 3
+        assert !isRed(node) || (!isRed(node.left()) && !isRed(node.right())) : "Red node with a red child " + node;
+        for (RedBlackNode child : new RedBlackNode[] {node.left(), node.right()}) {
+            assert node.rank == child.rank + (isRed(child) ? 0 : 1) :
+                    String.format("%s has rank %d but a child of black height %d", node, node.rank, child.rank + (isRed(child) ? 0 : 1));
+        }
+    }
+
+    /**
+     * Property 4 is checked by the tree, which requires the black nodes on every path to add up to the same weight.
+     */
+    @Override
+    int pathWeight(RedBlackNode node) {
+        return node.colour.getValue();
+    }
+
+    @Override
+    String label(RedBlackNode node) {
+        return node.colour.name();
+    }
+}
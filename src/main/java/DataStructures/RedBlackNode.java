@@ -2,10 +2,15 @@ package DataStructures;
 
 public class RedBlackNode extends BinaryNode {
     Colour colour;
+    // The number of copies of data held by this node when its tree is in multiset mode
+    int count = 1;
+    // Rank kept by the BalancingStrategy, 0 for a new node and -1 for a sentinel LEAF
+    int rank = 0;
 
     RedBlackNode() {
         super();
         this.colour = Colour.BLACK;
+        this.rank = -1;
     }
 
     RedBlackNode(int data) {
@@ -40,6 +45,20 @@ public class RedBlackNode extends BinaryNode {
         return (RedBlackNode) right;
     }
 
+    /**
+     * @return The left child if asked for, otherwise the right child
+     */
+    RedBlackNode child(boolean left) {
+        return left ? left() : right();
+    }
+
+    /**
+     * @return Whether this is a sentinel LEAF rather than a node holding a value
+     */
+    boolean isSentinel() {
+        return data == null;
+    }
+
     @Override
     public RedBlackNode getGrandParent() {
         return (RedBlackNode) super.getGrandParent();
@@ -1,6 +1,11 @@
 package DataStructures;
 
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 
@@ -10,6 +15,26 @@ import java.util.logging.Logger;
  *  node colouring properties.  Search, insertion and deletion are all
  *  performed in O(log n) time.
  *
+ *  The balancing rules are delegated to a BalancingStrategy, red-black
+ *  by default, so the same tree can instead be kept balanced as an AVL
+ *  or WAVL tree.  Those trade the height of the tree, and so the cost of
+ *  searches, against the number of rotations spent keeping it balanced,
+ *  which the tree counts.
+ *
+ *  In multiset mode every node also carries the number of copies of its
+ *  value, so repeated values cost a count update rather than a node.
+ *
+ *  The tree also remembers the last node it touched as a finger, so that
+ *  insertNear() and searchNear() climb up from there to the lowest common
+ *  ancestor instead of descending from the root, and values larger than
+ *  the current maximum are appended directly.
+ *
+ *  An optional counting Bloom filter can be placed in front of the tree,
+ *  letting lookups of absent values return without walking the tree.
+ *
+ *  Once a tree is only going to be read, freeze() copies its values into
+ *  a FrozenTree, a flat array searched without chasing node references.
+ *
  */
 public class RedBlackTree {
     private static final Logger logger = Logger.getLogger(RedBlackTree.class.getName());
@@ -17,7 +42,56 @@ public class RedBlackTree {
     private RedBlackNode root;
     // This is a sentinel node which plays the role of every null-leaf in the tree.
     private final static RedBlackNode LEAF = new RedBlackNode();
+    // The rules the tree is kept balanced by
+    private final BalancingStrategy strategy;
+    // Lets the strategy rotate the tree without exposing rotations outside of it
+    private final BalancingStrategy.Rotator rotator = this::rotateUp;
+    // The number of rotations performed since the tree was built
+    private long rotations = 0;
+    // Whether repeated values are counted rather than dropped
+    private final boolean multiset;
+    // The number of values in the tree, counting every copy in multiset mode
+    private int size = 0;
+    // The number of nodes in the tree, ie. of distinct values, which is what the cost of walking the tree depends on
+    private int nodes = 0;
+    // The last node inserted or found, where finger searches start from
+    private RedBlackNode finger;
+    // The node holding the maximal value, which always has a LEAF as its right child
+    private RedBlackNode maxNode;
+    // Filter answering lookups of absent values without walking the tree, or null if lookups always walk it
+    private CountingBloomFilter membershipFilter;
+    // Batches with at least one distinct value for this many nodes of the tree are merged and rebuilt, not joined
+    private static final int REBUILD_FRACTION = 4;
 
+    public RedBlackTree() {
+        this(false);
+    }
+
+    /**
+     * @param multiset Whether the tree should count repeated values instead of ignoring them
+     */
+    public RedBlackTree(boolean multiset) {
+        this(multiset, BalancingStrategy.RED_BLACK);
+    }
+
+    /**
+     * @param strategy The rules the tree is kept balanced by
+     */
+    public RedBlackTree(BalancingStrategy strategy) {
+        this(false, strategy);
+    }
+
+    /**
+     * @param multiset Whether the tree should count repeated values instead of ignoring them
+     * @param strategy The rules the tree is kept balanced by
+     */
+    public RedBlackTree(boolean multiset, BalancingStrategy strategy) {
+        if (strategy == null) {
+            throw new NullPointerException("strategy");
+        }
+        this.multiset = multiset;
+        this.strategy = strategy;
+    }
 
     /*************** GENERAL HELPERS **********************/
 
@@ -64,7 +138,106 @@ public class RedBlackTree {
                 parent.right = centre;
             }
         }
+        rotations++;
+    }
+
+    /**
+     * Rotates the given node up above its parent.
+     */
+    private void rotateUp(RedBlackNode node) {
+        BinaryNode parent = node.parent;
+        rotate(parent, node == parent.right);
+    }
+
+    RedBlackNode getRoot() {
+        return root;
+    }
+
+    public BalancingStrategy getStrategy() {
+        return strategy;
+    }
+
+    /**
+     * @return The number of rotations performed since the tree was built
+     */
+    public long getRotations() {
+        return rotations;
+    }
+
+    /**
+     * @return The number of nodes on the longest path from the root to a LEAF, or 0 for an empty tree
+     */
+    public int height() {
+        return height(root);
+    }
+
+    private static int height(RedBlackNode node) {
+        return node == null || node == LEAF ? 0 : 1 + Math.max(height(node.left()), height(node.right()));
+    }
+
+    /**
+     * @return The number of values in the tree, counting every copy of a value in multiset mode
+     */
+    public int size() {
+        return size;
+    }
 
+    public boolean isMultiset() {
+        return multiset;
+    }
+
+    /**
+     * Throws if the tree was not built in multiset mode.
+     */
+    private void requireMultiset() {
+        if (!multiset) {
+            throw new IllegalStateException("Copies can only be counted by a tree in multiset mode");
+        }
+    }
+
+    /************ MEMBERSHIP FILTER METHODS *********************/
+
+    /**
+     * Places a counting Bloom filter sized for the expected number of distinct values in front of the tree.
+     *
+     * @param expectedValues The number of distinct values the tree is expected to hold at once
+     * @param falsePositiveRate The desired rate of lookups of absent values that still have to walk the tree
+     */
+    public void enableMembershipFilter(int expectedValues, double falsePositiveRate) {
+        setMembershipFilter(new CountingBloomFilter(expectedValues, falsePositiveRate));
+    }
+
+    /**
+     * Places the given filter in front of the tree, filling it with the tree's values.  The filter is then kept up to
+     * date by every insertion and deletion, and rebuilt once deletions have left too many stale counts in it.
+     *
+     * @param filter Filter to consult before every lookup, or null to remove the current one
+     */
+    public void setMembershipFilter(CountingBloomFilter filter) {
+        membershipFilter = filter;
+        if (filter != null) {
+            rebuildMembershipFilter();
+        }
+    }
+
+    /**
+     * @return The filter in front of the tree, whose counters report the lookups it saved, or null if there is none
+     */
+    public CountingBloomFilter getMembershipFilter() {
+        return membershipFilter;
+    }
+
+    private void rebuildMembershipFilter() {
+        membershipFilter.clear();
+        fillMembershipFilter(root);
+    }
+
+    private void fillMembershipFilter(RedBlackNode root) {
+        if (root != null && root != LEAF) {
+            membershipFilter.add(root.data);
+            fillMembershipFilter(root.left());
+            fillMembershipFilter(root.right());
+        }
     }
 
     /************ SEARCH METHODS *********************/
@@ -76,7 +249,85 @@ public class RedBlackTree {
      * @return Whether the given value was found in the tree or not
      */
     public boolean search(int value) {
-        return searchRec(root, value) != null;
+        return filteredSearch(root, value) != null;
+    }
+
+    /**
+     * Counts the copies of the given value in the tree
+     *
+     * @param value The value to count
+     * @return The number of copies of the value, which is at most 1 outside of multiset mode
+     */
+    public int count(int value) {
+        RedBlackNode n = filteredSearch(root, value);
+        return n == null ? 0 : n.count;
+    }
+
+    /**
+     * Searches for a given value starting from the last node touched rather than from the root.  The search climbs
+     * from that node to the lowest ancestor whose subtree can hold the value and descends from there, so it takes time
+     * proportional to the height of that ancestor.  Without level links this is not O(log d) for values at distance
+     * d: two adjacent values on either side of a high node, such as the root's predecessor and successor, are still
+     * O(log n) apart, and O(log n) is the worst case.  Sweeping through values in ascending or descending order costs
+     * O(1) amortized per value, as every edge is climbed and descended a constant number of times.
+     *
+     * @param value The value to search the tree for
+     * @return Whether the given value was found in the tree or not
+     */
+    public boolean searchNear(int value) {
+        RedBlackNode found = filteredSearch(climb(value), value);
+        if (found != null) {
+            finger = found;
+        }
+        return found != null;
+    }
+
+    /**
+     * Searches for a given value in a subtree, unless the membership filter shows it is not in the tree.
+     *
+     * @param root Root of the subtree to search through
+     * @param value The value to search the tree for
+     * @return The target node if it exists in the tree, otherwise null
+     */
+    private RedBlackNode filteredSearch(RedBlackNode root, int value) {
+        if (membershipFilter == null) {
+            return searchRec(root, value);
+        }
+        if (!membershipFilter.mightContain(value)) {
+            return null;
+        }
+        RedBlackNode found = searchRec(root, value);
+        if (found == null) {
+            membershipFilter.recordFalsePositive();
+        }
+        return found;
+    }
+
+    /**
+     * Climbs from the finger until reaching a subtree whose range of values contains the given value.  Values on the
+     * far side of the finger from the target are already excluded, so only the bound towards the target is checked:
+     * climbing stops at the first node that is a left child of a larger value (or right child of a smaller value).
+     *
+     * @param value The value that will be searched for or inserted
+     * @return Root of the smallest subtree visited that can hold the value, or the tree root
+     */
+    private RedBlackNode climb(int value) {
+        RedBlackNode current = finger != null ? finger : root;
+        if (current == null) {
+            return null;
+        }
+        boolean rightward = value > current.data;
+        while (current.parent != null && current.data != value) {
+            RedBlackNode parent = current.parent();
+            boolean contained = rightward ?
+                    current == parent.left && value < parent.data :
+                    current == parent.right && value > parent.data;
+            if (contained) {
+                break;
+            }
+            current = parent;
+        }
+        return current;
     }
 
     /**
@@ -99,36 +350,102 @@ public class RedBlackTree {
     /************ INSERT METHODS *********************/
 
     /**
-     * If the given value does not already exist in the tree, inserts it.
+     * If the given value does not already exist in the tree, inserts it.  In multiset mode, adds one copy of it.
      *
      * @param value Value to be inserted
      */
     void insert(int value) {
-        RedBlackNode n = new RedBlackNode(value);
-        // Performs a simple binary search tree insertion
-        if (insertRec(root, n)) {
-            // Repair any red-black tree conditions that were broken by the insertion
-            insertRepair(n);
+        if (multiset) {
+            add(value, 1);
+            return;
+        }
+        insertNode(value, 1, false);
+    }
 
-            // The root may have changed due to tree rotations, so we'll have to re-find it just in case
-            root = n;
-            while (root.parent != null) {
-                root = (RedBlackNode) root.parent;
+    /**
+     * Inserts the given value like insert(), but starts looking for its position from the last node touched, with the
+     * same cost as searchNear(): O(log n) in the worst case, and O(1) amortized per value for the position search of
+     * a sorted stream.
+     *
+     * @param value Value to be inserted
+     */
+    public void insertNear(int value) {
+        insertNode(value, 1, true);
+    }
+
+    /**
+     * Adds n copies of the given value to a tree in multiset mode.  Copies of a value already in the tree only update
+     * that value's count.
+     *
+     * @param value Value to be added
+     * @param n The number of copies to add
+     * @throws ArithmeticException If the tree would hold more than Integer.MAX_VALUE copies, leaving it unchanged
+     */
+    public void add(int value, int n) {
+        requireMultiset();
+        if (n < 0) {
+            throw new IllegalArgumentException("Cannot add a negative number of copies: " + n);
+        }
+        if (n > 0) {
+            insertNode(value, n, false);
+        }
+    }
+
+    /**
+     * Inserts a node holding count copies of the given value, or adds the copies to the existing node for it when in
+     * multiset mode.
+     *
+     * @param value Value to be inserted
+     * @param count The number of copies to insert
+     * @param nearFinger Whether to start looking for the value's position from the finger rather than the root
+     */
+    private void insertNode(int value, int count, boolean nearFinger) {
+        // Every count is at most the size, so checking the size first keeps both from overflowing
+        Math.addExact(size, count);
+        RedBlackNode n = new RedBlackNode(value);
+        n.count = count;
+        // Performs a simple binary search tree insertion, appending directly below the maximum when possible
+        RedBlackNode existing;
+        if (maxNode != null && value > maxNode.data) {
+            existing = insertRec(maxNode, n);
+        } else {
+            existing = insertRec(nearFinger ? climb(value) : root, n);
+        }
+        finger = existing;
+        if (existing != n) {
+            if (multiset) {
+                existing.count += count;
+                size += count;
             }
+            return;
+        }
+        size += count;
+        nodes++;
+        if (maxNode == null || value > maxNode.data) {
+            maxNode = n;
+        }
+        if (membershipFilter != null) {
+            membershipFilter.add(value);
         }
+        // Let the strategy repair the balance broken by the insertion.  Any change of root caused by rotations is
+        // recorded by rotate().
+        if (n.parent == null) {
+            root = n;
+        }
+        strategy.afterInsert(rotator, n);
     }
 
     /**
-     * Performs a simple binary search tree insertion without regard for red-black tree conditions
+     * Performs a simple binary search tree insertion without regard for balance
      *
      * @param root Root of the subtree to perform the insertion on
      * @param n Node to be inserted
-     * @return true if the insertion was successful, false if the given node was already included in the tree
+     * @return n if the insertion was successful, otherwise the node already holding n's value
      */
-    private boolean insertRec(RedBlackNode root, RedBlackNode n) {
+    private RedBlackNode insertRec(RedBlackNode root, RedBlackNode n) {
         if (root != null) {
             if (n.data.equals(root.data)) {
-                return false;
+                return root;
             } else if (n.data > root.data) {
                 if (root.right == LEAF) {
                     root.right = n;
@@ -147,120 +464,101 @@ public class RedBlackTree {
         n.parent = root;
         n.left = LEAF;
         n.right = LEAF;
-        n.colour = RedBlackNode.Colour.RED;
-        return true;
+        return n;
     }
 
+    /************ DELETE METHODS *********/
+
     /**
-     * Repairs red-black tree conditions that have been broken by performing a simple BST
-     * insertion with n.
-     * In case 3, a tail-recursive call is performed which could run all the way up to the tree root in thw worst case.
-     * This gives insert an O(log n) time complexity.
+     * Deletes the given value from the tree, if it exists, and keeps the tree balanced.  In multiset
+     * mode, deletes one copy of it.
      *
-     * @param n Node that was inserted and where repair-checks should start from
+     * @param value Value of the node that should be deleted
      */
-    private void insertRepair(RedBlackNode n) {
-        RedBlackNode parent = (RedBlackNode) n.parent;
-        if (n.parent == null) {
-            // Case 1 - n is the new functional root
-            // Then assign the tree's root field.
-            root = n;
-            n.colour = RedBlackNode.Colour.BLACK;
-        } else if (parent.colour == RedBlackNode.Colour.BLACK) {
-            // Case 2 - n's parent is black
-            // Then we're done because no red-black tree conditions are broken
+    void delete(int value) {
+        if (multiset) {
+            remove(value, 1);
+            return;
+        }
+        RedBlackNode current = findNode(value);
+        if (current != null) {
+            deleteNode(current);
         } else {
-            RedBlackNode uncle = n.getUncle();
-            if (uncle != null && uncle.colour == RedBlackNode.Colour.RED) {
-
-                // Case 3 - parent and uncle are red
-                // Then recolour parent, uncle and grandparent
-                RedBlackNode grandParent = n.getGrandParent();
-                assert(grandParent != null && n.getUncle() != null);
-                parent.colour = RedBlackNode.Colour.BLACK;
-                uncle.colour = RedBlackNode.Colour.BLACK;
-                grandParent.colour = RedBlackNode.Colour.RED;
-
-                // Grandparent might now be violating property 2 so we have to recursively run the
-                // repair algorithm on it.
-                insertRepair(grandParent);
-            } else {
-                // Case 4 - parent is red and uncle is black
-                insertCase4(n);
-            }
+            logger.fine(String.format("BinaryNode with data %d not found.  Nothing to delete", value));
         }
     }
 
     /**
-     * Handles case 4 of the insert repair step.
-     * The parent P is red but the uncle U is black.
+     * Removes up to n copies of the given value from a tree in multiset mode.  The value's node is only deleted once
+     * its last copy is removed.
      *
-     * @param n Node that was inserted
+     * @param value Value to be removed
+     * @param n The maximal number of copies to remove
+     * @return The number of copies actually removed
      */
-    private void insertCase4(BinaryNode n) {
-        BinaryNode parent = n.parent;
-        BinaryNode grandParent = n.getGrandParent();
-        // step 1 - if n is on the "inside" of the tree, rotate it to the outside
-        if (n == grandParent.left.right) {
-            rotate(parent, true);
-            n = n.left;
-        } else if (n == grandParent.right.left) {
-            rotate(parent, false);
-            n = n.right;
+    public int remove(int value, int n) {
+        requireMultiset();
+        if (n < 0) {
+            throw new IllegalArgumentException("Cannot remove a negative number of copies: " + n);
         }
-
-        insertCase4Step2((RedBlackNode) n);
+        RedBlackNode current = findNode(value);
+        if (current == null || n == 0) {
+            return 0;
+        }
+        if (current.count > n) {
+            current.count -= n;
+            size -= n;
+            return n;
+        }
+        int removed = current.count;
+        deleteNode(current);
+        return removed;
     }
 
     /**
-     * Now that n is on the "outside" of the tree, we can perform step 2.
+     * Performs a simple BST search for the node holding the given value
      *
-     * @param n Node that was inserted
+     * @param value The value to search for
+     * @return The node holding value, or null if there is none
      */
-    private void insertCase4Step2(RedBlackNode n) {
-        RedBlackNode parent = (RedBlackNode) n.parent;
-        RedBlackNode grandParent = n.getGrandParent();
-
-        // Peform a rotation towards the opposite side that n is on
-        rotate(grandParent, n == parent.right);
-        // Then recolour to maintain red-black tree properties.
-        parent.colour = RedBlackNode.Colour.BLACK;
-        grandParent.colour = RedBlackNode.Colour.RED;
+    private RedBlackNode findNode(int value) {
+        RedBlackNode current = root;
+        while (current != null && current != LEAF && value != current.data) {
+            current = value > current.data ? current.right() : current.left();
+        }
+        return current == LEAF ? null : current;
     }
 
-    /************ DELETE METHODS *********/
-
     /**
-     * Deletes the given value from the tree, if it exists, and maintain all red-black tree properties
+     * Deletes the given node, along with all of its copies, and keeps the tree balanced
      *
-     * @param value Value of the node that should be deleted
+     * @param current Node that should be deleted
      */
-    void delete(int value) {
-        RedBlackNode current = root;
-        // Perform a simple BST search
-        while (current != null && current != LEAF && value != current.data) {
-            current = value > current.data ? current.right() : current.left();
+    private void deleteNode(RedBlackNode current) {
+        size -= current.count;
+        nodes--;
+        if (membershipFilter != null) {
+            membershipFilter.remove(current.data);
         }
-
-        if (current != null && current != LEAF) {
-            if (current.left != LEAF && current.right != LEAF) {
-                // Special case: the delete candidate is an internal node (it has two non-leaf children)
-                // Then swap it's inorder predecessor/successor's value into the candidate node
-                RedBlackNode swapNode = (RedBlackNode) this.getInOrderPredecessor(current);
-                if (swapNode == null) {
-                    swapNode = (RedBlackNode) this.getinOrderSucessor(current);
-                }
-                current.data = swapNode.data;
-
-                // Now the problem is reduced to deleting a node that has at most one non-leaf child, the swapNode
-                deleteOneChild(swapNode);
-            } else {
-                // Delete a node that has at most one non-leaf child
-                deleteOneChild(current);
+        if (current.left != LEAF && current.right != LEAF) {
+            // Special case: the delete candidate is an internal node (it has two non-leaf children)
+            // Then swap it's inorder predecessor/successor's value into the candidate node
+            RedBlackNode swapNode = (RedBlackNode) this.getInOrderPredecessor(current);
+            if (swapNode == null) {
+                swapNode = (RedBlackNode) this.getinOrderSucessor(current);
             }
+            current.data = swapNode.data;
+            current.count = swapNode.count;
+
+            // Now the problem is reduced to deleting a node that has at most one non-leaf child, the swapNode
+            deleteOneChild(swapNode);
+        } else {
+            // Delete a node that has at most one non-leaf child
+            deleteOneChild(current);
         }
-        else {
-            logger.fine(String.format("BinaryNode with data %d not found.  Nothing to delete", value));
+
+        if (membershipFilter != null && membershipFilter.needsRebuild()) {
+            rebuildMembershipFilter();
         }
     }
 
@@ -305,240 +603,617 @@ public class RedBlackTree {
         RedBlackNode child = toDelete.right == LEAF ? toDelete.left() : toDelete.right();
 
         // substitute child into toDelete's place in the tree
-        BinaryNode parent = toDelete.parent;
+        RedBlackNode parent = toDelete.parent();
+        boolean left = parent != null && toDelete == parent.left;
         if (parent == null) {
             root = child != LEAF ? child : null;
         } else {
             assert toDelete == parent.left || toDelete == parent.right;
-            if (toDelete == parent.left) {
+            if (left) {
                 parent.left = child;
             } else {
                 parent.right = child;
             }
         }
-        child.parent = parent;
+        if (child != LEAF) {
+            child.parent = parent;
+        }
 
-        if (toDelete.colour == RedBlackNode.Colour.BLACK) {
-            if (child.colour == RedBlackNode.Colour.RED) {
-                child.colour = RedBlackNode.Colour.BLACK;
-            } else {
-                // Some repairs are needed to maintain red-black tree properties
-                deleteCase1(child);
+        // Nodes are only ever unlinked here, so this is where the finger and maximum may lose their node
+        if (toDelete == maxNode) {
+            maxNode = child != LEAF ? child : parent;
+            while (maxNode != null && maxNode.right != LEAF) {
+                maxNode = maxNode.right();
             }
         }
+        if (toDelete == finger) {
+            finger = parent;
+        }
+
+        strategy.afterDelete(rotator, parent, left, child, toDelete);
     }
 
+    /************ BATCH METHODS *********/
+
     /**
-     * Handles case 1 of after-deletion repairs, where the given node is the root of the tree.
+     * Inserts every value of the given batch, as if insert() had been called on each of them in turn.  The batch is
+     * sorted and built into a balanced tree of its m distinct values, which is united with the tree's n nodes by
+     * splitting the tree at the batch's root and joining the unions of both halves back through it.  This costs
+     * O(m log(n/m + 1)), against O(m log n) for inserting the values one by one.  Batches whose size is comparable to
+     * the tree's are instead merged with its contents in a single in-order pass, and the tree is rebuilt from the
+     * result in O(n + m).  Repeated copies of a value only add to its count either way.
      *
-     * @param n Child of the node that was deleted
+     * @param values Batch of values to be inserted, which is left unmodified
+     * @return The number of values actually added, ie. new values outside of multiset mode or every copy in it
+     * @throws ArithmeticException If the tree would hold more than Integer.MAX_VALUE copies, leaving it unchanged
      */
-    private void deleteCase1(RedBlackNode n) {
-        // If n is the root, then we're done and don't need to do anything
-        if (n.parent != null) {
-            deleteCase2(n);
+    public int insertAll(int[] values) {
+        if (multiset) {
+            Math.addExact(size, values.length);
+        }
+        int[] sorted = sortedCopy(values);
+        int before = size;
+        int distinct = distinctCount(sorted);
+        if (preferRebuild(distinct)) {
+            rebuildMerged(sorted, distinct, true);
+        } else if (distinct > 0) {
+            replaceRoot(union(buildBatch(sorted, distinct), root != null ? root : LEAF, new RedBlackNode[2]));
         }
+        return size - before;
     }
 
     /**
-     * Handles case 2 of after-deletion repairs, where the given node's sibling is red.
+     * Deletes every value of the given batch, as if delete() had been called on each of them in turn.  The batch is
+     * built into a tree like in insertAll(), and the difference is taken by splitting the tree at the batch's root and
+     * joining the differences of both halves, without the matching node unless it still has copies left.  Batches
+     * comparable to the tree in size are applied through the same merge and rebuild pass as insertAll().
      *
-     * @param n Child of the node that was deleted
+     * @param values Batch of values to be deleted, which is left unmodified
+     * @return The number of values actually removed, counting every copy in multiset mode
      */
-    private void deleteCase2(RedBlackNode n) {
-        /*
-            In this case, n's sibling is red
-            Perform colour change and rotation necessary so that n has a black sibling
-            and then go to the next step
-        */
-        RedBlackNode sibling = n.getSibling();
-        if (sibling.colour == RedBlackNode.Colour.RED) {
-            n.parent().colour = RedBlackNode.Colour.RED;
-            sibling.colour = RedBlackNode.Colour.BLACK;
-            rotate(n.parent, n == n.parent.left);
+    public int deleteAll(int[] values) {
+        int[] sorted = sortedCopy(values);
+        int before = size;
+        int distinct = distinctCount(sorted);
+        if (preferRebuild(distinct)) {
+            rebuildMerged(sorted, 0, false);
+        } else if (distinct > 0) {
+            replaceRoot(difference(root != null ? root : LEAF, buildBatch(sorted, distinct), new RedBlackNode[2]));
+            if (membershipFilter != null && membershipFilter.needsRebuild()) {
+                rebuildMembershipFilter();
+            }
         }
-
-        deleteCase3(n);
+        return before - size;
     }
 
     /**
-     * Handles case 3 of after-deletion repairs, where the given node's children are all black.
+     * Adds the values of a batch tree to a subtree, keeping the batch's nodes and dropping the subtree's matching
+     * ones after adding their counts to the batch's.
      *
-     * @param n Child of the node that was deleted
+     * @param batch Root of a balanced tree of distinct values with their counts, or LEAF
+     * @param top Root of a balanced subtree without a parent, or LEAF
+     * @param parts Scratch space for split()
+     * @return Root of the union, which has no parent
      */
-    private void deleteCase3(RedBlackNode n) {
-        /*
-            If n, n's parent, and n's sibling's children are all black
-            then colour n's sibling red and perform a rebalancing on n's parent
-            starting at case 1.
-            This rebalancing is a tail-recursive call that could reach the tree root in the worst case, giving
-            this deletion an O(log n) time complexity.
-        */
+    private RedBlackNode union(RedBlackNode batch, RedBlackNode top, RedBlackNode[] parts) {
+        if (batch == LEAF) {
+            return top;
+        }
+        RedBlackNode match = split(top, batch.data, parts);
+        RedBlackNode below = parts[0];
+        RedBlackNode above = parts[1];
+        if (match == null) {
+            size += batch.count;
+            nodes++;
+            if (membershipFilter != null) {
+                membershipFilter.add(batch.data);
+            }
+        } else if (multiset) {
+            size += batch.count;
+            batch.count += match.count;
+        }
+        below = union(batch.left(), below, parts);
+        above = union(batch.right(), above, parts);
+        return strategy.join(rotator, below, batch, above);
+    }
 
-        RedBlackNode sibling = n.getSibling();
+    /**
+     * Removes the values of a batch tree from a subtree, or only as many copies as the batch holds in multiset mode.
+     *
+     * @param top Root of a balanced subtree without a parent, or LEAF
+     * @param batch Root of a balanced tree of distinct values with their counts, or LEAF
+     * @param parts Scratch space for split()
+     * @return Root of the difference, which has no parent
+     */
+    private RedBlackNode difference(RedBlackNode top, RedBlackNode batch, RedBlackNode[] parts) {
+        if (top == LEAF || batch == LEAF) {
+            return top;
+        }
+        RedBlackNode match = split(top, batch.data, parts);
+        RedBlackNode below = parts[0];
+        RedBlackNode above = parts[1];
+        below = difference(below, batch.left(), parts);
+        above = difference(above, batch.right(), parts);
+        if (match != null) {
+            if (multiset && match.count > batch.count) {
+                match.count -= batch.count;
+                size -= batch.count;
+                return strategy.join(rotator, below, match, above);
+            }
+            size -= match.count;
+            nodes--;
+            if (membershipFilter != null) {
+                membershipFilter.remove(match.data);
+            }
+        }
+        if (below == LEAF) {
+            return above;
+        }
+        // Without a middle node, the last node of the lower part is split off to join the parts through
+        RedBlackNode last = splitLast(below, parts);
+        return strategy.join(rotator, parts[0], last, above);
+    }
 
-        if ((n.parent().colour == RedBlackNode.Colour.BLACK) &&
-                (sibling.colour == RedBlackNode.Colour.BLACK) &&
-                (sibling.left().colour == RedBlackNode.Colour.BLACK) &&
-                (sibling.right().colour == RedBlackNode.Colour.BLACK)) {
-            sibling.colour = RedBlackNode.Colour.RED;
-            deleteCase1(n.parent());
+    /**
+     * Splits a subtree into the nodes holding values below the given one and those holding values above it, joining
+     * the subtrees hanging off the search path back together on either side.
+     *
+     * @param top Root of a balanced subtree without a parent, or LEAF
+     * @param value Value to split the subtree at
+     * @param parts Receives the root of the lower part at index 0 and that of the upper part at index 1
+     * @return The detached node holding the value, or null if there is none
+     */
+    private RedBlackNode split(RedBlackNode top, int value, RedBlackNode[] parts) {
+        if (top == LEAF) {
+            parts[0] = LEAF;
+            parts[1] = LEAF;
+            return null;
+        }
+        RedBlackNode left = detach(top.left());
+        RedBlackNode right = detach(top.right());
+        if (value == top.data) {
+            parts[0] = left;
+            parts[1] = right;
+            return top;
+        }
+        RedBlackNode match;
+        if (value < top.data) {
+            match = split(left, value, parts);
+            parts[1] = strategy.join(rotator, parts[1], top, right);
         } else {
-            deleteCase4(n);
+            match = split(right, value, parts);
+            parts[0] = strategy.join(rotator, left, top, parts[0]);
         }
+        return match;
     }
 
     /**
-     * Handles case 4 of after-deletion repairs, where the given node's sibling and sibling's children are black
-     * but the parent is red
+     * Splits the node holding the maximal value off a subtree.
      *
-     * @param n Child of the node that was deleted
+     * @param top Root of a non-empty balanced subtree without a parent
+     * @param parts Receives the root of the rest of the subtree at index 0
+     * @return The detached node holding the maximal value
      */
-    private void deleteCase4(RedBlackNode n) {
-        // n's sibling and sibling's children are black but n's parent is red
-        // then swap the colours of the sibling and parent
+    private RedBlackNode splitLast(RedBlackNode top, RedBlackNode[] parts) {
+        RedBlackNode left = detach(top.left());
+        RedBlackNode right = detach(top.right());
+        if (right == LEAF) {
+            parts[0] = left;
+            return top;
+        }
+        RedBlackNode last = splitLast(right, parts);
+        parts[0] = strategy.join(rotator, left, top, parts[0]);
+        return last;
+    }
 
-        RedBlackNode sibling = n.getSibling();
+    /**
+     * @return The given node, or LEAF, cut off from its parent
+     */
+    private static RedBlackNode detach(RedBlackNode node) {
+        if (node != LEAF) {
+            node.parent = null;
+        }
+        return node;
+    }
 
-        if ((n.parent().colour == RedBlackNode.Colour.RED) &&
-                (sibling.colour == RedBlackNode.Colour.BLACK) &&
-                (sibling.left().colour == RedBlackNode.Colour.BLACK) &&
-                (sibling.right().colour == RedBlackNode.Colour.BLACK)) {
-            sibling.colour = RedBlackNode.Colour.RED;
-            n.parent().colour = RedBlackNode.Colour.BLACK;
-        } else {
-            deleteCase5(n);
+    /**
+     * Makes the result of a batch the whole tree.  Joins only ever leave a red root behind when one of the split
+     * parts is returned as it is, and blackening the root changes no rank.
+     */
+    private void replaceRoot(RedBlackNode top) {
+        root = top != LEAF ? top : null;
+        if (root != null) {
+            root.colour = RedBlackNode.Colour.BLACK;
+        }
+        finger = null;
+        maxNode = root;
+        while (maxNode != null && maxNode.right != LEAF) {
+            maxNode = maxNode.right();
         }
     }
 
     /**
-     * Handles case 5 of after-deletion repairs, where the given node's sibling is black and the sibling's children
-     * are red AND black.
+     * @return A balanced tree of the distinct values of a sorted batch, with their counts in multiset mode
+     */
+    private RedBlackNode buildBatch(int[] sorted, int distinct) {
+        int[] keys = new int[distinct];
+        int[] counts = new int[distinct];
+        for (int i = 0, j = 0; i < sorted.length; j++) {
+            int run = runLength(sorted, i);
+            keys[j] = sorted[i];
+            counts[j] = multiset ? run : 1;
+            i += run;
+        }
+        return buildTree(keys, counts, distinct);
+    }
+
+    /**
+     * @return The given values in ascending order, as the same array if they already are or as a sorted copy
+     */
+    private static int[] sortedCopy(int[] values) {
+        for (int i = 1; i < values.length; i++) {
+            if (values[i - 1] > values[i]) {
+                int[] sorted = values.clone();
+                Arrays.sort(sorted);
+                return sorted;
+            }
+        }
+        return values;
+    }
+
+    /**
+     * @return The number of consecutive copies of sorted[start] in the sorted batch
+     */
+    private static int runLength(int[] sorted, int start) {
+        int end = start + 1;
+        while (end < sorted.length && sorted[end] == sorted[start]) {
+            end++;
+        }
+        return end - start;
+    }
+
+    /**
+     * @return The number of distinct values in the sorted batch
+     */
+    private static int distinctCount(int[] sorted) {
+        int distinct = sorted.length > 0 ? 1 : 0;
+        for (int i = 1; i < sorted.length; i++) {
+            if (sorted[i] != sorted[i - 1]) {
+                distinct++;
+            }
+        }
+        return distinct;
+    }
+
+    /**
+     * Compares a batch of m distinct values to the tree's n nodes.  Splitting and joining costs O(m log(n/m + 1)) but
+     * has a larger constant than the O(n + m) of merging and rebuilding, which wins once m is a sizeable fraction of
+     * n.  Copies are not counted, since a run of copies of a value costs a single node either way.  Batches whose
+     * merged result would not fit in an array are always joined.
+     */
+    private boolean preferRebuild(int m) {
+        long merged = (long) nodes + m;
+        if (merged > Integer.MAX_VALUE - 8) {
+            return false;
+        }
+        return (long) m * REBUILD_FRACTION >= nodes;
+    }
+
+    /**
+     * Merges the tree's values with a sorted batch, adding or subtracting the batch's copies, and replaces the tree
+     * with a balanced one holding the result.
      *
-     * @param n Child of the node that was deleted
+     * @param sorted Batch of values in ascending order
+     * @param batchDistinct The number of distinct values in the batch, which only needs to be known when adding
+     * @param adding Whether the batch is being inserted, false implies deleted
      */
-    private void deleteCase5(RedBlackNode n) {
-        /*
-            Sibling is black, sibling's children are red and black
-            Rotate so that n has a black sibling whose child towards the outside of the subtree at n's parent is red
-            Then we can fall into case 6
-          */
-        RedBlackNode sibling = n.getSibling();
+    private void rebuildMerged(int[] sorted, int batchDistinct, boolean adding) {
+        int distinct = 0;
+        int[] keys = new int[nodes + (adding ? batchDistinct : 0)];
+        int[] counts = new int[keys.length];
+        int i = 0;
 
-        if (sibling.colour == RedBlackNode.Colour.BLACK) {
-            if ((n == n.parent.left) &&
-                    (sibling.right().colour == RedBlackNode.Colour.BLACK) &&
-                    sibling.left().colour == RedBlackNode.Colour.RED) {
-                sibling.colour = RedBlackNode.Colour.RED;
-                sibling.left().colour = RedBlackNode.Colour.BLACK;
-                rotate(sibling, false);
-            } else if ((n == n.parent.right) &&
-                    (sibling.left().colour == RedBlackNode.Colour.BLACK) &&
-                    (sibling.right().colour == RedBlackNode.Colour.RED)) {
-                sibling.colour = RedBlackNode.Colour.RED;
-                sibling.right().colour = RedBlackNode.Colour.BLACK;
-                rotate(sibling, true);
+        // An in-order traversal of the tree yields its values in ascending order
+        Deque<RedBlackNode> toVisit = new ArrayDeque<>();
+        RedBlackNode current = root;
+        while (current != null && current != LEAF || !toVisit.isEmpty()) {
+            if (current != null && current != LEAF) {
+                toVisit.push(current);
+                current = current.left();
+                continue;
+            }
+            current = toVisit.pop();
+            // Batch values below the current one either become new nodes or have nothing to delete
+            while (i < sorted.length && sorted[i] < current.data) {
+                int run = runLength(sorted, i);
+                if (adding) {
+                    keys[distinct] = sorted[i];
+                    counts[distinct++] = multiset ? run : 1;
+                }
+                i += run;
+            }
+            int count = current.count;
+            if (i < sorted.length && sorted[i] == current.data) {
+                int run = runLength(sorted, i);
+                if (!multiset) {
+                    count = adding ? 1 : 0;
+                } else {
+                    count = adding ? count + run : Math.max(0, count - run);
+                }
+                i += run;
             }
+            if (count > 0) {
+                keys[distinct] = current.data;
+                counts[distinct++] = count;
+            }
+            current = current.right();
+        }
+        while (adding && i < sorted.length) {
+            int run = runLength(sorted, i);
+            keys[distinct] = sorted[i];
+            counts[distinct++] = multiset ? run : 1;
+            i += run;
+        }
+
+        size = 0;
+        for (int j = 0; j < distinct; j++) {
+            size += counts[j];
+        }
+        nodes = distinct;
+        replaceRoot(buildTree(keys, counts, distinct));
+        if (membershipFilter != null) {
+            rebuildMembershipFilter();
         }
-        deleteCase6(n);
     }
 
     /**
-     * Handles case 6 of after-deletion repairs, where the given node's sibling is black and the sibling's "outer" child
-     * is red.
+     * Builds a balanced tree from the first values of the given arrays.  Nodes on the deepest level of a midpoint-built
+     * tree are coloured red, so that every path has the same number of black nodes even when the last level is not
+     * full.
      *
-     * @param n Child of the note that was deleted
+     * @return Root of the tree, or LEAF if there are no values
      */
-    private void deleteCase6(RedBlackNode n) {
-        /*
-            Sibling is black, sibling's child towards the "outside" of the tree is red.
-            Then perform an inward rotation and recolour to restore red-black properties.
-         */
-        RedBlackNode sibling = n.getSibling();
+    private RedBlackNode buildTree(int[] keys, int[] counts, int distinct) {
+        boolean perfect = (distinct & (distinct + 1)) == 0;
+        int redDepth = perfect ? -1 : 31 - Integer.numberOfLeadingZeros(distinct);
+        return build(keys, counts, 0, distinct - 1, 0, redDepth, null);
+    }
 
-        sibling.colour = n.parent().colour;
-        n.parent().colour = RedBlackNode.Colour.BLACK;
+    /**
+     * Builds a balanced subtree from a sorted range of values by making the middle value its root.  Nodes are coloured
+     * by their depth and ranked by the strategy, so that the result is balanced under every strategy.
+     *
+     * @param keys Distinct values in ascending order
+     * @param counts The number of copies of each value
+     * @param low Index of the first value of the range
+     * @param high Index of the last value of the range
+     * @param depth Depth of the subtree's root in the whole tree
+     * @param redDepth Depth at which nodes are coloured red, or -1 if the tree is perfect and every node is black
+     * @param parent Parent of the subtree's root
+     * @return Root of the subtree, or LEAF if the range is empty
+     */
+    private RedBlackNode build(int[] keys, int[] counts, int low, int high, int depth, int redDepth, RedBlackNode parent) {
+        if (low > high) {
+            return LEAF;
+        }
+        int middle = (low + high) >>> 1;
+        RedBlackNode n = new RedBlackNode(keys[middle]);
+        n.count = counts[middle];
+        n.parent = parent;
+        n.colour = depth == redDepth ? RedBlackNode.Colour.RED : RedBlackNode.Colour.BLACK;
+        n.left = build(keys, counts, low, middle - 1, depth + 1, redDepth, n);
+        n.right = build(keys, counts, middle + 1, high, depth + 1, redDepth, n);
+        n.rank = strategy.rankAbove(n);
+        return n;
+    }
 
-        if (n == n.parent().left) {
-            sibling.right().colour = RedBlackNode.Colour.BLACK;
-            rotate(n.parent, true);
-        } else {
-            sibling.left().colour = RedBlackNode.Colour.BLACK;
-            rotate(n.parent, false);
+    /************ FREEZE METHODS *********/
+
+    /**
+     * Takes a read-only snapshot of the tree's values laid out in a flat array, for sets that are built once and then
+     * only searched.  The snapshot is independent of the tree, which can still be changed afterwards.  It takes a slot
+     * per node rather than per copy, so a multiset holding many copies of few values freezes into small arrays.
+     *
+     * @return Snapshot of the current values, with their counts in multiset mode
+     */
+    public FrozenTree freeze() {
+        int distinct = 0;
+        int[] keys = new int[nodes];
+        int[] counts = multiset ? new int[nodes] : null;
+
+        // An in-order traversal of the tree yields its values in ascending order
+        Deque<RedBlackNode> toVisit = new ArrayDeque<>();
+        RedBlackNode current = root;
+        while (current != null && current != LEAF || !toVisit.isEmpty()) {
+            if (current != null && current != LEAF) {
+                toVisit.push(current);
+                current = current.left();
+                continue;
+            }
+            current = toVisit.pop();
+            keys[distinct] = current.data;
+            if (multiset) {
+                counts[distinct] = current.count;
+            }
+            distinct++;
+            current = current.right();
         }
+        return new FrozenTree(keys, counts, distinct);
     }
 
     /************ TESTING METHODS *******/
 
     /**
-     * Validates the properties of a red-black tree
-     *
-     *  In addition to the requirements imposed on a binary search tree the following must be satisfied by a red–black tree:
+     * Validates the properties of the tree
      *
-     *  1. Each node is either red or black.
-     *  2. The root is black. This rule is sometimes omitted. Since the root can always be changed from red to black, but
-     *  not necessarily vice versa, this rule has little effect on analysis.
-     *  3. All leaves (NIL) are black.
-     *  4. If a node is red, then both its children are black.
-     *  5. Every path from a given node to any of its descendant NIL nodes contains the same number of black nodes.
-     *  Some definitions: the number of black nodes from the root to a node is the node's black depth; the uniform number of
-     *  black nodes in all paths from root to the leaves is called the black-height of the red–black tree.
+     *  In addition to the requirements imposed on a binary search tree, every node must satisfy the balancing rules of
+     *  the tree's strategy, and every path from a given node to any of its descendant LEAF nodes must have the same
+     *  weight under that strategy.  For a red-black tree, the weight of a path is the number of black nodes on it,
+     *  and the uniform weight of all paths from the root to the leaves is called the black-height of the tree.
      *
      */
     public void validate() {
         assert root != LEAF;
-        validateRec(root, Integer.MIN_VALUE, Integer.MAX_VALUE);
-    }
-
-    /**
-     * Validates the properties of a red-black tree and returns the black-height of this tree
-     *
-     * @param root Root of the subtree to perform validation on
-     * @param lowerBound Minimum value that this subtree's nodes may have that satisfies the binary search tree
-     * @param higherBound Maximum value that this subtree's nodes may have that satisfies the binary search tree
-     * @return The number of black nodes in all paths from root to the leaves, i.e. the black-height
-     */
-    private int validateRec(RedBlackNode root, int lowerBound, int higherBound) {
-        if (root == null) { return 0; }
-        if (root == LEAF) { return 1; }
-
-        assert root.parent == null || root.parent.left == root || root.parent.right == root :
-                String.format("validateRec: %s shows parent as %s but %s shows left %s and right %s",
-                        root,
-                        root.parent,
-                        root.parent,
-                        root.parent.left,
-                        root.parent.right);
-
-        // Binary search tree property check
-        assert(root.data > lowerBound && root.data < higherBound);
-
-        // Red-black properties checks
-        // Property 1
-        assert root.colour == RedBlackNode.Colour.BLACK || root.colour == RedBlackNode.Colour.RED;
-        // Properties 2 and 3
-        assert root != this.root && root != LEAF || (root.colour == RedBlackNode.Colour.BLACK);
-        // Property 4
-        if (root.colour == RedBlackNode.Colour.RED) {
-            assert(root.left != null && root.left().colour == RedBlackNode.Colour.BLACK);
-            assert(root.right != null && root.right().colour == RedBlackNode.Colour.BLACK);
-        }
-        // Property 5
-        // Every path from a given node to any of its LEAF nodes must contain the same number of black nodes.
-        int leftBlackHeight = validateRec(root.left(), lowerBound, root.data);
-        int rightBlackHeight = validateRec(root.right(), root.data, higherBound);
-        assert leftBlackHeight == rightBlackHeight :
-            String.format("Non-matching black-heights: %s's left %s with black-height %s and right %s with black-height %s",
-                    root,
-                    root.left,
-                    leftBlackHeight,
-                    root.right,
-                    rightBlackHeight);
-        return leftBlackHeight + root.colour.getValue(); // BLACK nodes should have a value of 1
+        validateSubtree(root, Integer.MIN_VALUE - 1L, Integer.MAX_VALUE + 1L, strategy);
+        validateFastPaths();
+    }
+
+    /**
+     * Validates the same properties as validate(), splitting the tree into subtrees which are validated in parallel
+     * by the common fork-join pool.  The top levels of the tree are divided into about eight subtrees per thread, and
+     * each of those is validated by the same constant-memory walk as validate().
+     */
+    public void validateParallel() {
+        assert root != LEAF;
+        int splits = 32 - Integer.numberOfLeadingZeros(ForkJoinPool.getCommonPoolParallelism()) + 3;
+        ForkJoinPool.commonPool().invoke(
+                new ValidationTask(root, Integer.MIN_VALUE - 1L, Integer.MAX_VALUE + 1L, strategy, splits));
+        validateFastPaths();
+    }
+
+    /**
+     * Validates the shortcuts kept alongside the tree: the append fast path relies on maxNode being the rightmost
+     * node.
+     */
+    private void validateFastPaths() {
+        RedBlackNode rightmost = root;
+        while (rightmost != null && rightmost.right != LEAF) {
+            rightmost = rightmost.right();
+        }
+        assert maxNode == rightmost : String.format("maxNode is %s but the rightmost node is %s", maxNode, rightmost);
+    }
+
+    /**
+     * Validates the properties of the tree in a subtree and returns the weight of its paths.  The subtree is walked
+     * in order by following parent links instead of recursing, so that the memory used does not depend on the size
+     * or depth of the tree.  The in-order walk checks the binary search tree property between consecutive values,
+     * and the depth weight of every node with a LEAF child gives the weight of each path.
+     *
+     * @param top Root of the subtree to perform validation on
+     * @param lowerBound Every value in the subtree must be strictly greater than this
+     * @param higherBound Every value in the subtree must be strictly smaller than this
+     * @param strategy Strategy whose balancing rules and path weights are checked
+     * @return The weight of all paths from top to the leaves, i.e. the black-height of a red-black tree
+     */
+    private static int validateSubtree(RedBlackNode top, long lowerBound, long higherBound, BalancingStrategy strategy) {
+        int leafWeight = strategy.pathWeight(LEAF);
+        if (top == null) { return 0; }
+        if (top == LEAF) { return leafWeight; }
+
+        int pathWeight = -1;
+        long previous = lowerBound;
+        // The weight of the nodes from top down to current, both included
+        int depthWeight = strategy.pathWeight(top);
+        RedBlackNode current = top;
+        while (current.left != LEAF) {
+            current = current.left();
+            depthWeight += strategy.pathWeight(current);
+        }
+
+        while (true) {
+            validateNode(current, strategy);
+            // Binary search tree property check
+            assert current.data > previous : String.format("%s follows %d in order", current, previous);
+            previous = current.data;
+            // Every path from top to any of its LEAF nodes must have the same weight.
+            if (current.left == LEAF || current.right == LEAF) {
+                if (pathWeight == -1) {
+                    pathWeight = depthWeight + leafWeight;
+                }
+                assert depthWeight + leafWeight == pathWeight :
+                        String.format("Non-matching path weights below %s: %d and %d", top, pathWeight, depthWeight + leafWeight);
+            }
+
+            // Step to the in-order successor, without leaving the subtree
+            if (current.right != LEAF) {
+                current = current.right();
+                depthWeight += strategy.pathWeight(current);
+                while (current.left != LEAF) {
+                    current = current.left();
+                    depthWeight += strategy.pathWeight(current);
+                }
+            } else {
+                while (current != top && current == current.parent.right) {
+                    depthWeight -= strategy.pathWeight(current);
+                    current = current.parent();
+                }
+                if (current == top) {
+                    break;
+                }
+                depthWeight -= strategy.pathWeight(current);
+                current = current.parent();
+            }
+        }
+        assert previous < higherBound : String.format("%d is not below %d", previous, higherBound);
+        return pathWeight;
+    }
+
+    /**
+     * Validates the properties of the tree that only concern a node and its immediate neighbours.
+     *
+     * @param n Node to validate
+     * @param strategy Strategy whose balancing rules are checked
+     */
+    private static void validateNode(RedBlackNode n, BalancingStrategy strategy) {
+        assert n.parent == null || n.parent.left == n || n.parent.right == n :
+                String.format("validateNode: %s shows parent as %s but %s shows left %s and right %s",
+                        n,
+                        n.parent,
+                        n.parent,
+                        n.parent.left,
+                        n.parent.right);
+        assert n.left != null && n.right != null : "Missing LEAF below " + n;
+        assert n.count > 0 : "Node without copies " + n;
+        strategy.validateNode(n);
+    }
+
+    /**
+     * Validates the top levels of a subtree node by node, forking a task for each child, until the remaining subtrees
+     * are small enough to be validated sequentially.
+     */
+    private static class ValidationTask extends RecursiveTask<Integer> {
+        private static final long serialVersionUID = 1L;
+        private final transient RedBlackNode top;
+        private final long lowerBound;
+        private final long higherBound;
+        private final transient BalancingStrategy strategy;
+        private final int splits;
+
+        ValidationTask(RedBlackNode top, long lowerBound, long higherBound, BalancingStrategy strategy, int splits) {
+            this.top = top;
+            this.lowerBound = lowerBound;
+            this.higherBound = higherBound;
+            this.strategy = strategy;
+            this.splits = splits;
+        }
+
+        @Override
+        protected Integer compute() {
+            if (top == null || top == LEAF || splits == 0) {
+                return validateSubtree(top, lowerBound, higherBound, strategy);
+            }
+            validateNode(top, strategy);
+            assert top.data > lowerBound && top.data < higherBound :
+                    String.format("%s is not between %d and %d", top, lowerBound, higherBound);
+
+            ValidationTask left = new ValidationTask(top.left(), lowerBound, top.data, strategy, splits - 1);
+            left.fork();
+            int rightWeight = new ValidationTask(top.right(), top.data, higherBound, strategy, splits - 1).compute();
+            int leftWeight = left.join();
+            assert leftWeight == rightWeight :
+                    String.format("Non-matching path weights: %s's left with weight %s and right with weight %s",
+                            top,
+                            leftWeight,
+                            rightWeight);
+            return leftWeight + strategy.pathWeight(top);
+        }
     }
 
     // Prints a representation of the tree, each line representing one level of the tree starting at the root.
     public void printTree() {
+        if (!logger.isLoggable(Level.FINE)) {
+            return;
+        }
         if (root == null) {
             logger.fine("Tree is empty.  Nothing to print.");
             return;
@@ -581,4 +1256,86 @@ public class RedBlackTree {
         }
     }
 
-}
\ No newline at end of file
+    /**
+     * Writes the tree in Graphviz DOT format to the given channel, one statement per node and per edge.  Nodes are
+     * visited in order by following parent links, and text goes through a single fixed-size buffer, so the memory
+     * used does not depend on the size of the tree.
+     *
+     * @param channel Channel to write the graph to, which is left open
+     */
+    public void exportDot(WritableByteChannel channel) throws IOException {
+        ChannelWriter out = new ChannelWriter(channel);
+        out.put("digraph RedBlackTree {\n");
+        RedBlackNode current = root;
+        while (current != null && current.left != LEAF) {
+            current = current.left();
+        }
+        while (current != null) {
+            out.put("  \"").put(current.data).put("\" [label=\"").put(current.data);
+            if (multiset) {
+                out.put(" x").put(current.count);
+            }
+            out.put(strategy.isRed(current) ? "\", color=red];\n" : "\", color=black];\n");
+            if (current.parent != null) {
+                out.put("  \"").put(current.parent.data).put("\" -> \"").put(current.data).put("\";\n");
+            }
+
+            // Step to the in-order successor
+            if (current.right != LEAF) {
+                current = current.right();
+                while (current.left != LEAF) {
+                    current = current.left();
+                }
+            } else {
+                while (current.parent != null && current == current.parent.right) {
+                    current = current.parent();
+                }
+                current = current.parent();
+            }
+        }
+        out.put("}\n");
+        out.flush();
+    }
+
+    /**
+     * Writes the tree to the given channel one level per line, starting at the root, in the same format as
+     * printTree().  Rather than queueing a whole level, each level is found by a fresh depth-limited walk that follows
+     * parent links, so the memory used stays constant at the cost of O(n log n) time.
+     *
+     * @param channel Channel to write the levels to, which is left open
+     */
+    public void exportLevels(WritableByteChannel channel) throws IOException {
+        ChannelWriter out = new ChannelWriter(channel);
+        boolean found = root != null;
+        for (int level = 0; found; level++) {
+            found = false;
+            RedBlackNode current = root;
+            int depth = 0;
+            while (current != null) {
+                if (depth == level) {
+                    out.put(found ? ", " : "[").put(current.data).put("(").put(strategy.label(current)).put(")");
+                    found = true;
+                }
+                // Descend towards the level first, then move on to the next unvisited right subtree
+                if (depth < level && current.left != LEAF) {
+                    current = current.left();
+                    depth++;
+                } else if (depth < level && current.right != LEAF) {
+                    current = current.right();
+                    depth++;
+                } else {
+                    while (current.parent != null && (current == current.parent.right || current.parent.right == LEAF)) {
+                        current = current.parent();
+                        depth--;
+                    }
+                    current = current.parent == null ? null : current.parent().right();
+                }
+            }
+            if (found) {
+                out.put("]\n");
+            }
+        }
+        out.flush();
+    }
+
+}
@@ -0,0 +1,295 @@
+package DataStructures;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * A streaming operator that tracks a quantile, such as the median or the 99th percentile, of the samples in a
+ * sliding window.  The window either holds a fixed number of the latest samples or every sample within a span of
+ * time.  Samples are split between two heaps: a max heap holding the lowest ceil(q * w) samples, whose top is the
+ * quantile, and a min heap holding the rest.  Adding and evicting a sample are both O(log w).
+ *
+ * Evicted samples are not searched for in the heaps.  They are recorded as pending and only popped once they reach
+ * the top of their heap, and the heaps are rebuilt from the window whenever the pending samples outnumber the window,
+ * so that the heaps stay within about twice the size of the window.
+ *
+ */
+public class SlidingWindowQuantile {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final double quantile;
+    // Maximal number of samples in a count window, or 0 for a time window
+    private final int windowSize;
+    // Span of a time window, or 0 for a count window
+    private final long span;
+
+    // The lower samples are pushed as ~value so that the min heap orders them from largest to smallest
+    private Heap lower = new Heap();
+    private Heap upper = new Heap();
+    private int lowerSize = 0;
+    private int upperSize = 0;
+    private final Map<Integer, Integer> pendingLower = new HashMap<>();
+    private final Map<Integer, Integer> pendingUpper = new HashMap<>();
+    private int pendingTotal = 0;
+
+    // Ring buffer of the samples in the window, oldest first, along with the times they were added at
+    private int[] values;
+    private long[] times;
+    private int head = 0;
+    private int count = 0;
+
+    private SlidingWindowQuantile(double quantile, int windowSize, long span) {
+        if (!(quantile > 0 && quantile <= 1)) {
+            throw new IllegalArgumentException("Quantile must be in (0, 1]: " + quantile);
+        }
+        this.quantile = quantile;
+        this.windowSize = windowSize;
+        this.span = span;
+        int capacity = windowSize > 0 ? windowSize : INITIAL_CAPACITY;
+        this.values = new int[capacity];
+        this.times = new long[capacity];
+    }
+
+    /**
+     * Creates an operator over the latest windowSize samples.
+     *
+     * @param quantile The quantile to track, eg. 0.5 for the median or 0.99 for the 99th percentile
+     * @param windowSize The number of samples in the window
+     */
+    public static SlidingWindowQuantile countWindow(double quantile, int windowSize) {
+        if (windowSize <= 0) {
+            throw new IllegalArgumentException("Window size must be positive: " + windowSize);
+        }
+        return new SlidingWindowQuantile(quantile, windowSize, 0);
+    }
+
+    /**
+     * Creates an operator over the samples added within the last span units of time.  A sample added at time t is
+     * evicted once a sample is added, or the window advanced, at time t + span or later.
+     *
+     * @param quantile The quantile to track, eg. 0.5 for the median or 0.99 for the 99th percentile
+     * @param span The length of the window, in the same units as the timestamps passed to add()
+     */
+    public static SlidingWindowQuantile timeWindow(double quantile, long span) {
+        if (span <= 0) {
+            throw new IllegalArgumentException("Span must be positive: " + span);
+        }
+        return new SlidingWindowQuantile(quantile, 0, span);
+    }
+
+    /**
+     * Adds a sample to a count window, evicting the oldest sample if the window is full.
+     *
+     * @param value The sample to add
+     * @return The quantile of the window after adding the sample
+     */
+    public int add(int value) {
+        if (windowSize == 0) {
+            throw new IllegalStateException("A time window needs a timestamp with each sample");
+        }
+        if (count == windowSize) {
+            evictOldest();
+        }
+        append(value, 0);
+        return quantile();
+    }
+
+    /**
+     * Adds a sample to a time window, evicting every sample that has fallen out of the window by then.
+     *
+     * @param timestamp Time of the sample, which may not be earlier than that of the previous sample
+     * @param value The sample to add
+     * @return The quantile of the window after adding the sample
+     */
+    public int add(long timestamp, int value) {
+        if (windowSize > 0) {
+            throw new IllegalStateException("A count window does not take timestamps");
+        }
+        if (count > 0 && timestamp < times[(head + count - 1) % times.length]) {
+            throw new IllegalArgumentException("Timestamps must not decrease: " + timestamp);
+        }
+        advanceTo(timestamp);
+        if (count == values.length) {
+            grow();
+        }
+        append(value, timestamp);
+        return quantile();
+    }
+
+    /**
+     * Evicts every sample of a time window that was added at or before timestamp - span.
+     *
+     * @param timestamp The current time
+     */
+    public void advanceTo(long timestamp) {
+        while (count > 0 && times[head] <= timestamp - span) {
+            evictOldest();
+        }
+    }
+
+    /**
+     * Adds every sample of the stream to a count window in order, publishing the quantile after each one.
+     *
+     * @param samples The samples to add
+     * @return A stream of the window's quantile after each sample was added
+     */
+    public IntStream quantiles(IntStream samples) {
+        return samples.sequential().map(this::add);
+    }
+
+    /**
+     * @return The tracked quantile of the samples currently in the window, or null if the window is empty
+     */
+    public Integer quantile() {
+        return lowerSize == 0 ? null : ~lower.peek();
+    }
+
+    /**
+     * @return The number of samples currently in the window
+     */
+    public int size() {
+        return count;
+    }
+
+    /******* General Helper Methods *******/
+
+    private void append(int value, long timestamp) {
+        int tail = (head + count) % values.length;
+        values[tail] = value;
+        times[tail] = timestamp;
+        count++;
+
+        if (lowerSize == 0 || value <= ~lower.peek()) {
+            lower.push(~value);
+            lowerSize++;
+        } else {
+            upper.push(value);
+            upperSize++;
+        }
+        rebalance();
+    }
+
+    private void evictOldest() {
+        int value = values[head];
+        head = (head + 1) % values.length;
+        count--;
+
+        // Both tops are kept clean, so a value no larger than the lower top must be held by the lower heap.
+        if (value <= ~lower.peek()) {
+            pendingLower.merge(value, 1, Integer::sum);
+            lowerSize--;
+        } else {
+            pendingUpper.merge(value, 1, Integer::sum);
+            upperSize--;
+        }
+        pendingTotal++;
+
+        if (pendingTotal > Math.max(count, INITIAL_CAPACITY)) {
+            rebuild();
+        } else {
+            prune();
+            rebalance();
+        }
+    }
+
+    /**
+     * Moves samples between the two heaps until the lower heap holds exactly the lowest ceil(q * w) samples.
+     */
+    private void rebalance() {
+        int target = (int) Math.ceil(quantile * count);
+        while (lowerSize > target) {
+            upper.push(~lower.pop());
+            lowerSize--;
+            upperSize++;
+            prune();
+        }
+        while (lowerSize < target && upperSize > 0) {
+            lower.push(~upper.pop());
+            upperSize--;
+            lowerSize++;
+            prune();
+        }
+    }
+
+    /**
+     * Pops samples waiting for deletion off the top of both heaps.
+     */
+    private void prune() {
+        while (lower.size() > 0 && consumePending(pendingLower, ~lower.peek())) {
+            lower.pop();
+        }
+        while (upper.size() > 0 && consumePending(pendingUpper, upper.peek())) {
+            upper.pop();
+        }
+    }
+
+    private boolean consumePending(Map<Integer, Integer> pending, int value) {
+        Integer copies = pending.get(value);
+        if (copies == null) {
+            return false;
+        }
+        if (copies == 1) {
+            pending.remove(value);
+        } else {
+            pending.put(value, copies - 1);
+        }
+        pendingTotal--;
+        return true;
+    }
+
+    /**
+     * Replaces both heaps with ones holding only the samples in the window, dropping every pending sample.
+     */
+    private void rebuild() {
+        int[] window = new int[count];
+        for (int i = 0; i < count; i++) {
+            window[i] = values[(head + i) % values.length];
+        }
+        Arrays.sort(window);
+        int target = (int) Math.ceil(quantile * count);
+        lower = new Heap();
+        upper = new Heap();
+        for (int i = 0; i < count; i++) {
+            if (i < target) {
+                lower.push(~window[i]);
+            } else {
+                upper.push(window[i]);
+            }
+        }
+        lowerSize = target;
+        upperSize = count - target;
+        pendingLower.clear();
+        pendingUpper.clear();
+        pendingTotal = 0;
+    }
+
+    private void grow() {
+        int[] grownValues = new int[values.length * 2];
+        long[] grownTimes = new long[times.length * 2];
+        for (int i = 0; i < count; i++) {
+            grownValues[i] = values[(head + i) % values.length];
+            grownTimes[i] = times[(head + i) % times.length];
+        }
+        values = grownValues;
+        times = grownTimes;
+        head = 0;
+    }
+
+    /********* TEST METHODS **************/
+
+    /**
+     * Validates that the heaps split the window at the tracked quantile and that the pending samples are accounted
+     * for.
+     */
+    void validate() {
+        lower.validate();
+        upper.validate();
+        assert lowerSize + upperSize == count : String.format("Heaps hold %d samples but the window holds %d", lowerSize + upperSize, count);
+        assert lowerSize == (int) Math.ceil(quantile * count) : "Lower heap holds " + lowerSize + " of " + count;
+        assert lower.size() + upper.size() == count + pendingTotal;
+        assert lowerSize == 0 || upperSize == 0 || ~lower.peek() <= upper.peek() :
+                String.format("Lower top %d is above upper top %d", ~lower.peek(), upper.peek());
+    }
+}
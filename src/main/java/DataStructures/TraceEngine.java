@@ -0,0 +1,89 @@
+package DataStructures;
+
+import java.util.function.IntPredicate;
+
+/**
+ * The operations a workload trace can be recorded from and replayed against.  Implementations wrap an ordered set,
+ * a priority queue or both, so that the same trace can be replayed against alternative engines and compared.  The
+ * priority queue operations reject every call unless overridden, so that an engine over an ordered set alone only
+ * implements the set operations.
+ */
+public interface TraceEngine {
+
+    void insert(int key);
+
+    void delete(int key);
+
+    boolean search(int key);
+
+    default void push(int key) {
+        throw new UnsupportedOperationException("No priority queue behind this engine");
+    }
+
+    /**
+     * @return The minimal element, or null if the priority queue is empty
+     */
+    default Integer pop() {
+        throw new UnsupportedOperationException("No priority queue behind this engine");
+    }
+
+    /**
+     * Creates an engine backed by the structures of this package.
+     *
+     * @param tree Tree receiving insert, delete and search operations
+     * @param heap Heap receiving push and pop operations
+     */
+    static TraceEngine of(RedBlackTree tree, MinHeap heap) {
+        return new TraceEngine() {
+            @Override
+            public void insert(int key) {
+                tree.insert(key);
+            }
+
+            @Override
+            public void delete(int key) {
+                tree.delete(key);
+            }
+
+            @Override
+            public boolean search(int key) {
+                return tree.search(key);
+            }
+
+            @Override
+            public void push(int key) {
+                heap.push(key);
+            }
+
+            @Override
+            public Integer pop() {
+                return heap.pop();
+            }
+        };
+    }
+
+    /**
+     * Creates an engine answering searches alone, for traces of lookups replayed against read-only structures such
+     * as a FrozenTree.
+     *
+     * @param lookup Answers whether a key is present
+     */
+    static TraceEngine ofLookups(IntPredicate lookup) {
+        return new TraceEngine() {
+            @Override
+            public void insert(int key) {
+                throw new UnsupportedOperationException("A lookup engine cannot insert " + key);
+            }
+
+            @Override
+            public void delete(int key) {
+                throw new UnsupportedOperationException("A lookup engine cannot delete " + key);
+            }
+
+            @Override
+            public boolean search(int key) {
+                return lookup.test(key);
+            }
+        };
+    }
+}
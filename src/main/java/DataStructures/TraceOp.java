@@ -0,0 +1,34 @@
+package DataStructures;
+
+/**
+ * The operations recorded in a workload trace, each stored as a single byte code ahead of its key.
+ */
+public enum TraceOp {
+    INSERT(0),
+    DELETE(1),
+    SEARCH(2),
+    PUSH(3),
+    POP(4);
+
+    private static final TraceOp[] byCode = values();
+
+    private final byte code;
+
+    TraceOp(int code) {
+        this.code = (byte) code;
+    }
+
+    public byte getCode() {
+        return code;
+    }
+
+    /**
+     * @return The operation stored under the given byte code
+     */
+    public static TraceOp fromCode(byte code) {
+        if (code < 0 || code >= byCode.length) {
+            throw new IllegalArgumentException("Unknown trace operation code " + code);
+        }
+        return byCode[code];
+    }
+}
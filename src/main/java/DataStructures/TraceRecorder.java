@@ -0,0 +1,109 @@
+package DataStructures;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Records every operation passing through it to a compact binary trace, then forwards it to the wrapped engine.
+ *
+ * A trace starts with an 8 byte header, the magic number MAGIC followed by the format VERSION, and continues with one
+ * fixed-size record per operation: the operation's byte code and its key as a big-endian int.  A pop is recorded
+ * with the value it returned, or 0 if the queue was empty.
+ *
+ */
+public class TraceRecorder implements TraceEngine, Closeable {
+    static final int MAGIC = 0x44535452; // "DSTR"
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 8;
+    static final int RECORD_BYTES = 5;
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final TraceEngine engine;
+    private final WritableByteChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private long records = 0;
+
+    /**
+     * @param engine Engine every operation is forwarded to
+     * @param channel Channel the trace is written to, which is closed along with the recorder
+     */
+    public TraceRecorder(TraceEngine engine, WritableByteChannel channel) {
+        this.engine = engine;
+        this.channel = channel;
+        buffer.putInt(MAGIC).putInt(VERSION);
+    }
+
+    @Override
+    public void insert(int key) {
+        record(TraceOp.INSERT, key);
+        engine.insert(key);
+    }
+
+    @Override
+    public void delete(int key) {
+        record(TraceOp.DELETE, key);
+        engine.delete(key);
+    }
+
+    @Override
+    public boolean search(int key) {
+        record(TraceOp.SEARCH, key);
+        return engine.search(key);
+    }
+
+    @Override
+    public void push(int key) {
+        record(TraceOp.PUSH, key);
+        engine.push(key);
+    }
+
+    @Override
+    public Integer pop() {
+        Integer popped = engine.pop();
+        record(TraceOp.POP, popped == null ? 0 : popped);
+        return popped;
+    }
+
+    /**
+     * @return The number of operations recorded so far
+     */
+    public long getRecords() {
+        return records;
+    }
+
+    private void record(TraceOp op, int key) {
+        try {
+            if (buffer.remaining() < RECORD_BYTES) {
+                drain();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        buffer.put(op.getCode()).putInt(key);
+        records++;
+    }
+
+    /**
+     * Writes every buffered record to the channel.
+     */
+    public void flush() throws IOException {
+        drain();
+    }
+
+    @Override
+    public void close() throws IOException {
+        drain();
+        channel.close();
+    }
+
+    private void drain() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
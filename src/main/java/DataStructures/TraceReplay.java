@@ -0,0 +1,142 @@
+package DataStructures;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Replays a workload trace written by TraceRecorder against an engine, timing every operation.  The trace is memory
+ * mapped rather than read through a buffer, in windows of at most 2 GiB for larger traces, and latencies go into a
+ * LatencyHistogram per operation, so replaying adds no allocation per record.
+ *
+ */
+public class TraceReplay {
+    // Largest whole number of records that fits in a single mapping
+    private static final long WINDOW_BYTES = Integer.MAX_VALUE / TraceRecorder.RECORD_BYTES * TraceRecorder.RECORD_BYTES;
+
+    private final LatencyHistogram overall = new LatencyHistogram();
+    private final LatencyHistogram[] byOp = new LatencyHistogram[TraceOp.values().length];
+    private long elapsedNanos = 0;
+    private long hits = 0;
+
+    private TraceReplay() {
+        for (int i = 0; i < byOp.length; i++) {
+            byOp[i] = new LatencyHistogram();
+        }
+    }
+
+    /**
+     * Replays every operation of the trace against the engine, in order.
+     *
+     * @param trace Path of a trace written by TraceRecorder
+     * @param engine Engine to replay the operations against
+     * @return The throughput and latencies measured during the replay
+     */
+    public static TraceReplay replay(Path trace, TraceEngine engine) throws IOException {
+        TraceReplay replay = new TraceReplay();
+        try (FileChannel channel = FileChannel.open(trace, StandardOpenOption.READ)) {
+            long length = channel.size();
+            if (length < TraceRecorder.HEADER_BYTES) {
+                throw new IOException("Trace is too short to hold a header: " + trace);
+            }
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, TraceRecorder.HEADER_BYTES);
+            if (header.getInt() != TraceRecorder.MAGIC || header.getInt() != TraceRecorder.VERSION) {
+                throw new IOException("Not a version " + TraceRecorder.VERSION + " trace: " + trace);
+            }
+            if ((length - TraceRecorder.HEADER_BYTES) % TraceRecorder.RECORD_BYTES != 0) {
+                throw new IOException("Trace ends with a truncated record: " + trace);
+            }
+
+            for (long position = TraceRecorder.HEADER_BYTES; position < length; position += WINDOW_BYTES) {
+                long windowLength = Math.min(WINDOW_BYTES, length - position);
+                replay.replayWindow(channel.map(FileChannel.MapMode.READ_ONLY, position, windowLength), engine);
+            }
+        }
+        return replay;
+    }
+
+    private void replayWindow(MappedByteBuffer records, TraceEngine engine) {
+        while (records.hasRemaining()) {
+            TraceOp op = TraceOp.fromCode(records.get());
+            int key = records.getInt();
+            long start = System.nanoTime();
+            switch (op) {
+                case INSERT:
+                    engine.insert(key);
+                    break;
+                case DELETE:
+                    engine.delete(key);
+                    break;
+                case SEARCH:
+                    hits += engine.search(key) ? 1 : 0;
+                    break;
+                case PUSH:
+                    engine.push(key);
+                    break;
+                case POP:
+                    hits += engine.pop() != null ? 1 : 0;
+                    break;
+            }
+            long latency = System.nanoTime() - start;
+            elapsedNanos += latency;
+            overall.record(latency);
+            byOp[op.ordinal()].record(latency);
+        }
+    }
+
+    /**
+     * @return The number of operations replayed
+     */
+    public long getOperations() {
+        return overall.getCount();
+    }
+
+    /**
+     * @return The time spent inside the engine, in nanoseconds, leaving out the time spent reading the trace
+     */
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * @return The number of operations replayed per second spent inside the engine
+     */
+    public double getThroughput() {
+        return elapsedNanos == 0 ? 0 : getOperations() * 1e9 / elapsedNanos;
+    }
+
+    /**
+     * @return The number of searches that found their key plus the number of pops that returned a value, which can be
+     * compared between engines replaying the same trace
+     */
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * @return The latencies of every operation, in nanoseconds
+     */
+    public LatencyHistogram getLatencies() {
+        return overall;
+    }
+
+    /**
+     * @return The latencies of the given kind of operation, in nanoseconds
+     */
+    public LatencyHistogram getLatencies(TraceOp op) {
+        return byOp[op.ordinal()];
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d ops, %.0f ops/s, p50 %d ns, p99 %d ns, p999 %d ns, max %d ns",
+                getOperations(),
+                getThroughput(),
+                overall.percentile(50),
+                overall.percentile(99),
+                overall.percentile(99.9),
+                overall.getMax());
+    }
+}
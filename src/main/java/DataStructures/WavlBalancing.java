@@ -0,0 +1,148 @@
+package DataStructures;
+
+/**
+ * Weak AVL balancing, after Haeupler, Sen and Tarjan's rank-balanced trees.  Every node's rank is one or two more
+ * than the rank of each of its children, counting LEAF sentinels as rank -1, and every leaf has rank 0.
+ *
+ * Insertions rebalance exactly as in an AVL tree, so a tree which only ever grows is an AVL tree.  Deletions are
+ * allowed to leave 2,2 nodes behind instead of restoring AVL balance, which lets them finish with at most two
+ * rotations, and only O(1) rank changes amortized.  The height stays below 2 log n, and below the AVL bound of
+ * 1.44 log m where m is the number of insertions.
+ *
+ */
+class WavlBalancing extends BalancingStrategy {
+
+    /**
+     * Climbs from the new leaf while it is a 0-child, promoting parents whose other child is a 1-child, and
+     * finishes with a single or double rotation once the other child is a 2-child.
+     */
+    @Override
+    void afterInsert(Rotator tree, RedBlackNode node) {
+        RedBlackNode parent = node.parent();
+        while (parent != null && parent.rank == node.rank) {
+            boolean left = node == parent.left;
+            RedBlackNode sibling = parent.child(!left);
+            if (parent.rank - sibling.rank == 1) {
+                parent.rank++;
+                node = parent;
+                parent = node.parent();
+                continue;
+            }
+
+            RedBlackNode inner = node.child(!left);
+            if (node.rank - inner.rank == 2) {
+                tree.rotateUp(node);
+                parent.rank--;
+            } else {
+                tree.rotateUp(inner);
+                tree.rotateUp(inner);
+                inner.rank++;
+                node.rank--;
+                parent.rank--;
+            }
+            return;
+        }
+    }
+
+    /**
+     * Demotes a parent left as a 2,2 leaf, then climbs while there is a 3-child, demoting the parent alone if the
+     * sibling is a 2-child, or the parent and the sibling if the sibling is a 2,2 node.  Otherwise a single or double
+     * rotation restores the rank rule and the deletion is over.
+     */
+    @Override
+    void afterDelete(Rotator tree, RedBlackNode parent, boolean left, RedBlackNode child, RedBlackNode removed) {
+        if (parent != null && isLeaf(parent) && parent.rank == 1) {
+            parent.rank = 0;
+            left = parent.parent != null && parent == parent.parent.left;
+            parent = parent.parent();
+        }
+
+        while (parent != null && parent.rank - parent.child(left).rank == 3) {
+            RedBlackNode sibling = parent.child(!left);
+            if (parent.rank - sibling.rank == 2) {
+                parent.rank--;
+            } else if (sibling.rank - sibling.left().rank == 2 && sibling.rank - sibling.right().rank == 2) {
+                sibling.rank--;
+                parent.rank--;
+            } else {
+                rotateAfterDelete(tree, parent, sibling, left);
+                return;
+            }
+            left = parent.parent != null && parent == parent.parent.left;
+            parent = parent.parent();
+        }
+    }
+
+    /**
+     * Rotates the sibling of a 3-child above the parent, or the sibling's inner child if its outer child is a
+     * 2-child, and fixes the ranks of the nodes rotated.
+     */
+    private static void rotateAfterDelete(Rotator tree, RedBlackNode parent, RedBlackNode sibling, boolean left) {
+        RedBlackNode outer = sibling.child(!left);
+        if (sibling.rank - outer.rank == 1) {
+            tree.rotateUp(sibling);
+            sibling.rank++;
+            parent.rank--;
+            if (isLeaf(parent)) {
+                parent.rank--;
+            }
+        } else {
+            RedBlackNode inner = sibling.child(left);
+            tree.rotateUp(inner);
+            tree.rotateUp(inner);
+            inner.rank += 2;
+            sibling.rank--;
+            parent.rank -= 2;
+        }
+    }
+
+    /**
+     * Hangs the middle node from the first node of the facing spine of the taller tree whose rank is at most one more
+     * than the shorter tree's, one rank above that node.  The middle node can only be a 0-child when it is a 1,2
+     * node, exactly like a node promoted by an insertion, so the insertion repair finishes the join.
+     */
+    @Override
+    RedBlackNode join(Rotator tree, RedBlackNode left, RedBlackNode middle, RedBlackNode right) {
+        if (Math.abs(left.rank - right.rank) <= 1) {
+            link(null, false, middle, left, right);
+            middle.rank = rankAbove(middle);
+            return middle;
+        }
+
+        boolean leftTaller = left.rank > right.rank;
+        RedBlackNode taller = leftTaller ? left : right;
+        RedBlackNode shorter = leftTaller ? right : left;
+        RedBlackNode parent = null;
+        RedBlackNode node = taller;
+        while (node.rank > shorter.rank + 1) {
+            parent = node;
+            node = node.child(!leftTaller);
+        }
+        // The parent has a rank of at least two more than the shorter tree, so node has at least the rank of it
+        link(parent, !leftTaller, middle, leftTaller ? node : shorter, leftTaller ? shorter : node);
+        middle.rank = node.rank + 1;
+        afterInsert(tree, middle);
+        return topOf(taller);
+    }
+
+    @Override
+    int rankAbove(RedBlackNode node) {
+        return 1 + Math.max(node.left().rank, node.right().rank);
+    }
+
+    @Override
+    void validateNode(RedBlackNode node) {
+        int leftDifference = node.rank - node.left().rank;
+        int rightDifference = node.rank - node.right().rank;
+        assert leftDifference >= 1 && leftDifference <= 2 && rightDifference >= 1 && rightDifference <= 2 :
+                String.format("%s has rank differences %d and %d", node, leftDifference, rightDifference);
+        assert !isLeaf(node) || node.rank == 0 : "Leaf " + node + " does not have rank 0";
+    }
+
+    /**
+     * @return Whether both children of the node are LEAF sentinels
+     */
+    private static boolean isLeaf(RedBlackNode node) {
+        return node.left().isSentinel() && node.right().isSentinel();
+    }
+}
@@ -0,0 +1,59 @@
+package DataStructures;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.logging.Logger;
+
+/**
+ * Compares the balancing strategies of RedBlackTree on a read-mostly and on a delete-heavy trace, reporting the
+ * throughput of each replay along with the height of the tree and the rotations it took.
+ *
+ * Usage: BalancingBenchmark [number of values inserted]
+ */
+class BalancingBenchmark {
+    private static final Logger logger = Logger.getLogger(BalancingBenchmark.class.getName());
+    private static final BalancingStrategy[] strategies = {
+            BalancingStrategy.RED_BLACK, BalancingStrategy.AVL, BalancingStrategy.WAVL};
+    private static final String[] strategyNames = {"red-black", "AVL", "WAVL"};
+
+    public static void main(String[] args) throws IOException {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 200000;
+        Random random = new Random(36);
+        int[] values = random.ints(n).toArray();
+
+        Path readMostly = Benchmarks.record(TraceEngine.of(new RedBlackTree(), new Heap()), engine -> {
+            for (int value : values) {
+                engine.insert(value);
+            }
+            for (int i = 0; i < 4 * n; i++) {
+                engine.search(random.nextBoolean() ? values[random.nextInt(n)] : random.nextInt());
+            }
+        });
+        Path deleteHeavy = Benchmarks.record(TraceEngine.of(new RedBlackTree(), new Heap()), engine -> {
+            for (int value : values) {
+                engine.insert(value);
+            }
+            for (int i = 0; i < n; i++) {
+                engine.delete(values[i]);
+                engine.insert(random.nextInt());
+            }
+            for (int i = 0; i < n; i++) {
+                engine.delete(values[random.nextInt(n)]);
+            }
+        });
+
+        String[] traceNames = {"read-mostly", "delete-heavy"};
+        Path[] traces = {readMostly, deleteHeavy};
+        for (int t = 0; t < traces.length; t++) {
+            for (int s = 0; s < strategies.length; s++) {
+                BalancingStrategy strategy = strategies[s];
+                RedBlackTree[] measured = new RedBlackTree[1];
+                Benchmarks.replay(traceNames[t] + " " + strategyNames[s], traces[t],
+                        () -> TraceEngine.of(measured[0] = new RedBlackTree(strategy), new Heap()));
+                logger.info(String.format("%s %s: height %d, %d rotations", traceNames[t], strategyNames[s],
+                        measured[0].height(), measured[0].getRotations()));
+            }
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package DataStructures;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+
+/**
+ * Shared plumbing of the benchmarks of this package, which are run through their main methods rather than with the
+ * tests.  Workloads are recorded once as a trace and replayed against fresh engines, first a few times so that the JIT
+ * compiles them and then once measured, so only the replayed operations are timed.  Workloads that do not fit a
+ * TraceEngine are timed as whole rounds of a loop instead.
+ */
+final class Benchmarks {
+    private static final Logger logger = Logger.getLogger(Benchmarks.class.getName());
+    static final int WARM_UP_ROUNDS = 3;
+    static final int MEASURED_ROUNDS = 5;
+
+    private Benchmarks() {
+
+    }
+
+    /**
+     * A workload to be recorded, issuing its operations to the given engine.
+     */
+    interface Workload {
+        void run(TraceEngine engine);
+    }
+
+    /**
+     * One round of a timed loop.
+     */
+    interface Round {
+        /**
+         * @return A checksum of the results of the round, which keeps the JIT from dropping the work
+         */
+        long run();
+    }
+
+    /**
+     * Records a workload to a temporary trace, which is deleted when the JVM exits.
+     *
+     * @param engine Engine the recorded operations are forwarded to
+     * @param workload Workload to record
+     * @return Path of the trace
+     */
+    static Path record(TraceEngine engine, Workload workload) throws IOException {
+        Path trace = Files.createTempFile("benchmark", ".trace");
+        trace.toFile().deleteOnExit();
+        try (TraceRecorder recorder = new TraceRecorder(engine, FileChannel.open(trace, StandardOpenOption.WRITE))) {
+            workload.run(recorder);
+        }
+        return trace;
+    }
+
+    /**
+     * Replays a trace against fresh engines, warming up before the measured replay, and logs the measured replay.
+     *
+     * @param name Name the result is logged under
+     * @param trace Path of a trace written by record()
+     * @param engines Supplies a fresh engine, ready for the trace, for every replay
+     * @return The measured replay
+     */
+    static TraceReplay replay(String name, Path trace, Supplier<TraceEngine> engines) throws IOException {
+        for (int round = 0; round < WARM_UP_ROUNDS; round++) {
+            TraceReplay.replay(trace, engines.get());
+        }
+        TraceReplay replay = TraceReplay.replay(trace, engines.get());
+        logger.info(String.format("%-32s %s", name, replay));
+        return replay;
+    }
+
+    /**
+     * Runs warm-up rounds of a loop and then measured ones, and logs the median time per operation.
+     *
+     * @param name Name the result is logged under
+     * @param operations The number of operations performed by each round
+     * @param round One round of the loop, holding nothing but the operations under test
+     * @return The median time per operation of the measured rounds, in nanoseconds
+     */
+    static double time(String name, int operations, Round round) {
+        long checksum = 0;
+        for (int i = 0; i < WARM_UP_ROUNDS; i++) {
+            checksum += round.run();
+        }
+        long[] elapsed = new long[MEASURED_ROUNDS];
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            long start = System.nanoTime();
+            checksum += round.run();
+            elapsed[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(elapsed);
+        double perOperation = (double) elapsed[MEASURED_ROUNDS / 2] / operations;
+        logger.info(String.format("%-32s %.1f ns/op, %.0f ops/s (checksum %d)",
+                name, perOperation, 1e9 / perOperation, checksum));
+        return perOperation;
+    }
+}
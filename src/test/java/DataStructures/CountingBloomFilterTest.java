@@ -0,0 +1,97 @@
+package DataStructures;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.logging.Logger;
+
+class CountingBloomFilterTest {
+    private static final Logger logger = Logger.getLogger(CountingBloomFilterTest.class.getName());
+
+    @BeforeAll
+    static void setUpAll() {
+        logger.info("Starting CountingBloomFilter tests...");
+    }
+
+    /**
+     * Tests that added keys are always found, removed keys stop being found, and the false-positive rate stays
+     * close to the configured one.
+     */
+    @Test
+    void addRemoveAndRateTest() {
+        Random random = new Random(31);
+        for (CountingBloomFilter filter : new CountingBloomFilter[]{
+                new CountingBloomFilter(10000, 0.01),
+                CountingBloomFilter.withMemoryBudget(48000, 10000)}) {
+            Set<Integer> added = new HashSet<>();
+            while (added.size() < 10000) {
+                int key = random.nextInt();
+                if (added.add(key)) {
+                    filter.add(key);
+                }
+            }
+            for (int key : added) {
+                assert filter.mightContain(key) : key + " was added but not found";
+            }
+
+            int falsePositives = 0;
+            int trials = 100000;
+            for (int i = 0; i < trials; i++) {
+                int key = random.nextInt();
+                if (!added.contains(key) && filter.mightContain(key)) {
+                    falsePositives++;
+                }
+            }
+            logger.fine(String.format("%d counters, %d hashes, %d bytes: %d false positives in %d lookups",
+                    filter.getCounterCount(), filter.getHashCount(), filter.getMemoryBytes(), falsePositives, trials));
+            assert falsePositives < trials * 0.02 : falsePositives + " false positives in " + trials;
+
+            for (int key : added) {
+                filter.remove(key);
+            }
+            assert filter.size() == 0;
+            assert !filter.needsRebuild();
+            for (int key : added) {
+                assert !filter.mightContain(key) : key + " was removed but still found";
+            }
+        }
+        logger.info("Passed");
+    }
+
+    /**
+     * Tests that a budget or a rate far beyond what the keys need leaves the filter at 16 hashes, and that an
+     * oversized budget is not spent on counters the hashes cannot use.
+     */
+    @Test
+    void hashCapTest() {
+        CountingBloomFilter oversized = CountingBloomFilter.withMemoryBudget(1 << 20, 100);
+        assert oversized.getHashCount() <= 16 : oversized.getHashCount() + " hashes";
+        assert oversized.getMemoryBytes() < 2048 : oversized.getMemoryBytes() + " bytes for 100 keys";
+        CountingBloomFilter strict = new CountingBloomFilter(100, 1e-12);
+        assert strict.getHashCount() == 16 : strict.getHashCount() + " hashes";
+
+        Random random = new Random(31);
+        for (CountingBloomFilter filter : new CountingBloomFilter[]{oversized, strict}) {
+            Set<Integer> added = new HashSet<>();
+            while (added.size() < 100) {
+                int key = random.nextInt();
+                if (added.add(key)) {
+                    filter.add(key);
+                }
+            }
+            int falsePositives = 0;
+            for (int i = 0; i < 100000; i++) {
+                int key = random.nextInt();
+                if (!added.contains(key) && filter.mightContain(key)) {
+                    falsePositives++;
+                }
+            }
+            // About 1 in 65536 for the oversized budget, and far fewer at the strict rate
+            assert falsePositives < 10 : falsePositives + " false positives with " + filter.getHashCount() + " hashes";
+        }
+        logger.info("Passed");
+    }
+}
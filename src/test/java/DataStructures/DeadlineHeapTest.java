@@ -0,0 +1,62 @@
+package DataStructures;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.logging.Logger;
+
+class DeadlineHeapTest {
+    private static final Logger logger = Logger.getLogger(DeadlineHeapTest.class.getName());
+
+    @BeforeAll
+    static void setUpAll() {
+        logger.info("Starting DeadlineHeap tests...");
+    }
+
+    /**
+     * Tests random pushes, pops and removals from the middle of the heap against a PriorityQueue, with deadlines that
+     * straddle the overflow of a long.
+     */
+    @Test
+    void randomOperationsTest() {
+        Random random = new Random(34);
+        DeadlineHeap heap = new DeadlineHeap();
+        PriorityQueue<long[]> expected = new PriorityQueue<>((a, b) -> Long.signum(a[0] - b[0]));
+        long base = Long.MAX_VALUE - 50000;
+        long[] deadlineOf = new long[2000];
+
+        for (int i = 0; i < 100000; i++) {
+            int task = random.nextInt(deadlineOf.length);
+            int operation = random.nextInt(3);
+            if (operation == 0 && !heap.contains(task)) {
+                long deadline = base + random.nextInt(100000);
+                heap.push(task, deadline);
+                deadlineOf[task] = deadline;
+                expected.add(new long[]{deadline, task});
+            } else if (operation == 1) {
+                boolean removed = heap.remove(task);
+                assert removed == expected.removeIf(entry -> entry[1] == task) : "Removal of task " + task + " differs";
+            } else if (heap.size() > 0) {
+                long earliest = heap.peekDeadline();
+                assert earliest == expected.peek()[0] : "Expected earliest deadline " + expected.peek()[0] + " but got " + earliest;
+                int popped = heap.pop();
+                assert deadlineOf[popped] == earliest : "Popped task " + popped + " does not have the earliest deadline";
+                expected.removeIf(entry -> entry[1] == popped);
+            }
+            assert heap.size() == expected.size();
+            if (i % 1000 == 0) {
+                heap.validate();
+            }
+        }
+
+        while (heap.size() > 0) {
+            assert deadlineOf[heap.peekTask()] == expected.poll()[0];
+            heap.pop();
+        }
+        assert heap.pop() == -1 && heap.peekTask() == -1;
+        heap.validate();
+        logger.info("Passed");
+    }
+}
@@ -0,0 +1,147 @@
+package DataStructures;
+
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Measures the throughput of scheduling and cancelling tasks, both for deadlines far enough to be parked in the timer
+ * wheel and for deadlines close enough to go straight into the heap, against a ScheduledThreadPoolExecutor removing
+ * cancelled tasks, and the throughput of dispatching expired tasks.  The schedulers read a clock that only moves when
+ * the benchmark advances it, so the timer thread never competes with the measured loop.
+ *
+ * Firing jitter is then measured on the real clock: tasks are scheduled at known deadlines spread over a second, each
+ * records how late it ran, and the percentiles of that lateness are compared with those of a ScheduledThreadPoolExecutor
+ * given the same deadlines.  Tasks run on the thread firing them, so the lateness is that of the timer alone.
+ *
+ * Usage: DeadlineSchedulerBenchmark [number of tasks]
+ */
+class DeadlineSchedulerBenchmark {
+    private static final Logger logger = Logger.getLogger(DeadlineSchedulerBenchmark.class.getName());
+    private static final long TICK_NANOS = 1L << 20;
+    private static final Runnable NOTHING = () -> { };
+    private static final int JITTER_TASKS = 5000;
+    private static final long JITTER_SPAN_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    /**
+     * Schedules a task to run at a System.nanoTime() deadline.
+     */
+    private interface Scheduling {
+        void scheduleAt(Runnable task, long deadlineNanos);
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 1 << 18;
+        Random random = new Random(34);
+        long[] farDelays = new long[n];
+        long[] nearDelays = new long[n];
+        for (int i = 0; i < n; i++) {
+            farDelays[i] = TimeUnit.MILLISECONDS.toNanos(1000 + random.nextInt(10_000));
+            nearDelays[i] = random.nextInt((int) TICK_NANOS);
+        }
+        long[] handles = new long[n];
+
+        double wheel = Benchmarks.time("wheel schedule+cancel", 2 * n, () -> scheduleAndCancel(farDelays, handles));
+        double heap = Benchmarks.time("heap schedule+cancel", 2 * n, () -> scheduleAndCancel(nearDelays, handles));
+
+        ScheduledThreadPoolExecutor pool = new ScheduledThreadPoolExecutor(1);
+        pool.setRemoveOnCancelPolicy(true);
+        ScheduledFuture<?>[] futures = new ScheduledFuture<?>[n];
+        double executor = Benchmarks.time("executor schedule+cancel", 2 * n, () -> {
+            for (int i = 0; i < n; i++) {
+                futures[i] = pool.schedule(NOTHING, farDelays[i], TimeUnit.NANOSECONDS);
+            }
+            long cancelled = 0;
+            for (int i = n - 1; i >= 0; i--) {
+                cancelled += futures[i].cancel(false) ? 1 : 0;
+            }
+            return cancelled;
+        });
+        pool.shutdownNow();
+        logger.info(String.format("Wheel and heap schedule+cancel run at %.1fx and %.1fx the throughput of the executor",
+                executor / wheel, executor / heap));
+
+        Benchmarks.time("schedule+dispatch", n, () -> {
+            long[] now = {0};
+            long fired = 0;
+            try (DeadlineScheduler scheduler = new DeadlineScheduler(Runnable::run, TICK_NANOS, () -> now[0])) {
+                for (int i = 0; i < n; i++) {
+                    scheduler.schedule(NOTHING, farDelays[i], TimeUnit.NANOSECONDS);
+                }
+                while (scheduler.pending() > 0) {
+                    now[0] += TICK_NANOS;
+                    fired += scheduler.runDue();
+                }
+            }
+            return fired;
+        });
+
+        long[] jitterDelays = new long[JITTER_TASKS];
+        for (int i = 0; i < JITTER_TASKS; i++) {
+            jitterDelays[i] = (long) (random.nextDouble() * JITTER_SPAN_NANOS);
+        }
+        for (long tick : new long[]{TICK_NANOS, TICK_NANOS >> 4}) {
+            try (DeadlineScheduler scheduler = new DeadlineScheduler(Runnable::run, tick)) {
+                logJitter(String.format("scheduler, %d us tick", tick / 1000), jitterDelays, scheduler::scheduleAt);
+            }
+        }
+        ScheduledThreadPoolExecutor timer = new ScheduledThreadPoolExecutor(1);
+        logJitter("executor", jitterDelays,
+                (task, deadline) -> timer.schedule(task, deadline - System.nanoTime(), TimeUnit.NANOSECONDS));
+        timer.shutdownNow();
+    }
+
+    /**
+     * Schedules a task at every delay from now, once to warm up and then measured, waits for all of them to run and
+     * logs the percentiles of how late they ran.
+     */
+    private static void logJitter(String name, long[] delays, Scheduling scheduling) throws InterruptedException {
+        LatencyHistogram lateness = null;
+        for (int round = 0; round <= Benchmarks.WARM_UP_ROUNDS; round++) {
+            lateness = jitter(delays, scheduling);
+        }
+        logger.info(String.format("%-32s lateness p50 %d ns, p99 %d ns, p999 %d ns, max %d ns", name + " jitter",
+                lateness.percentile(50), lateness.percentile(99), lateness.percentile(99.9), lateness.getMax()));
+    }
+
+    /**
+     * @return The histogram of how late, in nanoseconds, the task scheduled for each delay ran
+     */
+    private static LatencyHistogram jitter(long[] delays, Scheduling scheduling) throws InterruptedException {
+        // Recorded by the single thread firing the tasks, and read once the latch has seen every task
+        LatencyHistogram lateness = new LatencyHistogram();
+        CountDownLatch done = new CountDownLatch(delays.length);
+        long start = System.nanoTime();
+        for (long delay : delays) {
+            long deadline = start + delay;
+            scheduling.scheduleAt(() -> {
+                lateness.record(System.nanoTime() - deadline);
+                done.countDown();
+            }, deadline);
+        }
+        done.await();
+        return lateness;
+    }
+
+    /**
+     * Schedules a task for every delay, then cancels them all, newest first.
+     *
+     * @return The number of tasks cancelled
+     */
+    private static long scheduleAndCancel(long[] delays, long[] handles) {
+        long[] now = {0};
+        long cancelled = 0;
+        try (DeadlineScheduler scheduler = new DeadlineScheduler(Runnable::run, TICK_NANOS, () -> now[0])) {
+            for (int i = 0; i < delays.length; i++) {
+                handles[i] = scheduler.scheduleAt(NOTHING, delays[i]);
+            }
+            for (int i = delays.length - 1; i >= 0; i--) {
+                cancelled += scheduler.cancel(handles[i]) ? 1 : 0;
+            }
+        }
+        return cancelled;
+    }
+}
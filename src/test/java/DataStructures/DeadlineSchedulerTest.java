@@ -0,0 +1,151 @@
+package DataStructures;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+class DeadlineSchedulerTest {
+    private static final Logger logger = Logger.getLogger(DeadlineSchedulerTest.class.getName());
+
+    @BeforeAll
+    static void setUpAll() {
+        logger.info("Starting DeadlineScheduler tests...");
+    }
+
+    /**
+     * Tests that tasks spread over every level of the wheel fire once, on the first clock step at or after their
+     * deadline, and that cancelled tasks never fire.  The clock is advanced by hand in small random steps, so the
+     * test never waits and the lateness of every task is known exactly.
+     */
+    @Test
+    void scheduleAndCancelTest() {
+        Random random = new Random(34);
+        int taskCount = 600;
+        long maxStep = TimeUnit.MILLISECONDS.toNanos(3);
+        long[] now = {TimeUnit.HOURS.toNanos(5)};
+        long[] deadlines = new long[taskCount];
+        long[] handles = new long[taskCount];
+        long[] firedAt = new long[taskCount];
+        int[] firings = new int[taskCount];
+
+        // 100us ticks make the levels 0.1ms, 6.4ms, 410ms and 26s wide
+        try (DeadlineScheduler scheduler = new DeadlineScheduler(Runnable::run, 100_000, () -> now[0])) {
+            long start = now[0];
+            for (int i = 0; i < taskCount; i++) {
+                int task = i;
+                deadlines[i] = start + TimeUnit.MICROSECONDS.toNanos(random.nextInt(800_000));
+                handles[i] = scheduler.scheduleAt(() -> {
+                    firedAt[task] = now[0];
+                    firings[task]++;
+                }, deadlines[i]);
+            }
+            long farAway = scheduler.schedule(() -> {
+                throw new AssertionError("Fired an hour early");
+            }, 1, TimeUnit.HOURS);
+            scheduler.validate();
+
+            for (int i = 0; i < taskCount; i += 3) {
+                boolean cancelled = scheduler.cancel(handles[i]);
+                assert cancelled : "Could not cancel task " + i;
+            }
+            boolean cancelledFarAway = scheduler.cancel(farAway);
+            assert cancelledFarAway;
+            assert !scheduler.cancel(farAway) : "Cancelled the same task twice";
+            scheduler.validate();
+
+            int fired = 0;
+            while (now[0] - start <= TimeUnit.MILLISECONDS.toNanos(800)) {
+                now[0] += 1 + (long) (random.nextDouble() * maxStep);
+                fired += scheduler.runDue();
+                scheduler.validate();
+            }
+            assert fired == taskCount - (taskCount + 2) / 3 : fired + " tasks fired";
+            assert scheduler.pending() == 0 : scheduler.pending() + " tasks still pending";
+
+            for (int i = 0; i < taskCount; i++) {
+                if (i % 3 == 0) {
+                    assert firings[i] == 0 : "Cancelled task " + i + " fired";
+                } else {
+                    assert firings[i] == 1 : "Task " + i + " fired " + firings[i] + " times";
+                    assert firedAt[i] >= deadlines[i] : "Task " + i + " fired before its deadline";
+                    assert firedAt[i] - deadlines[i] <= maxStep : "Task " + i + " fired a step late";
+                    assert !scheduler.cancel(handles[i]) : "Cancelled task " + i + " after it fired";
+                }
+            }
+            LatencyHistogram lateness = scheduler.getLateness();
+            assert lateness.getCount() == fired;
+            assert lateness.getMax() <= maxStep : "Lateness of " + lateness.getMax() + " ns";
+        }
+        logger.info("Passed");
+    }
+
+    /**
+     * Tests that a task far beyond the coarsest level of the wheel cascades down and fires once its deadline passes,
+     * even when the clock jumps over most of the way at once.
+     */
+    @Test
+    void longJumpTest() {
+        long[] now = {0};
+        int[] fired = new int[1];
+        try (DeadlineScheduler scheduler = new DeadlineScheduler(Runnable::run, 100_000, () -> now[0])) {
+            scheduler.schedule(() -> fired[0]++, 3, TimeUnit.HOURS);
+            scheduler.schedule(() -> fired[0]++, 90, TimeUnit.MINUTES);
+            now[0] = TimeUnit.MINUTES.toNanos(89);
+            assert scheduler.runDue() == 0 && fired[0] == 0 : "Fired early";
+            scheduler.validate();
+            now[0] = TimeUnit.MINUTES.toNanos(90);
+            assert scheduler.runDue() == 1 && fired[0] == 1;
+            for (long minute = 91; minute < 180; minute += 7) {
+                now[0] = TimeUnit.MINUTES.toNanos(minute);
+                assert scheduler.runDue() == 0 : "Fired early at minute " + minute;
+                scheduler.validate();
+            }
+            now[0] = TimeUnit.HOURS.toNanos(3);
+            assert scheduler.runDue() == 1 && fired[0] == 2;
+            assert scheduler.pending() == 0;
+        }
+        logger.info("Passed");
+    }
+
+    /**
+     * Tests that slots reused after a task fires or is cancelled cannot be cancelled through the handle of the task
+     * that used them before.
+     */
+    @Test
+    void staleHandleTest() {
+        long[] now = {0};
+        int[] fired = new int[1];
+        try (DeadlineScheduler scheduler = new DeadlineScheduler(Runnable::run, 100_000, () -> now[0])) {
+            long first = scheduler.schedule(() -> { }, 1, TimeUnit.HOURS);
+            boolean cancelledFirst = scheduler.cancel(first);
+            assert cancelledFirst;
+            long second = scheduler.schedule(() -> fired[0]++, 20, TimeUnit.MILLISECONDS);
+            assert (int) second == (int) first : "Expected the freed slot to be reused";
+            assert !scheduler.cancel(first) : "A stale handle cancelled a later task";
+            now[0] += TimeUnit.MILLISECONDS.toNanos(20);
+            assert scheduler.runDue() == 1 && fired[0] == 1;
+            assert !scheduler.cancel(second) : "Cancelled a task after it fired";
+        }
+        logger.info("Passed");
+    }
+
+    /**
+     * Tests that the timer thread of a scheduler on the real clock dispatches tasks, waiting for them on a latch
+     * rather than for a fixed time.
+     */
+    @Test
+    void timerThreadTest() throws InterruptedException {
+        try (DeadlineScheduler scheduler = new DeadlineScheduler()) {
+            CountDownLatch fired = new CountDownLatch(10);
+            for (int i = 0; i < 10; i++) {
+                scheduler.schedule(fired::countDown, i, TimeUnit.MILLISECONDS);
+            }
+            assert fired.await(1, TimeUnit.MINUTES) : fired.getCount() + " tasks never fired";
+        }
+        logger.info("Passed");
+    }
+}
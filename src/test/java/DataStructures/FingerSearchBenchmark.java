@@ -0,0 +1,122 @@
+package DataStructures;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.logging.Logger;
+
+/**
+ * Compares searchNear(), which climbs from the finger, with search(), which descends from the root, by replaying the
+ * same traces of lookups against both: an ascending sweep, a walk taking short random steps and uniformly random
+ * lookups, which finger searches cannot speed up.
+ *
+ * Likewise compares insertNear() with insert() by replaying streams of insertions into an empty tree: a sequential
+ * stream, which both take through the append path below the maximum, a nearly sorted stream, which mostly misses the
+ * append path but lands next to the finger, and a random stream.
+ *
+ * Usage: FingerSearchBenchmark [number of values in the tree]
+ */
+class FingerSearchBenchmark {
+    private static final Logger logger = Logger.getLogger(FingerSearchBenchmark.class.getName());
+
+    public static void main(String[] args) throws IOException {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 1 << 20;
+        // Even values only, so that about half of the lookups miss
+        int[] values = new int[n];
+        for (int i = 0; i < n; i++) {
+            values[i] = 2 * i;
+        }
+        Random random = new Random(28);
+
+        Path sweep = Benchmarks.record(lookupEngine(values, false), engine -> {
+            for (int key = 0; key < 2 * n; key++) {
+                engine.search(key);
+            }
+        });
+        Path walk = Benchmarks.record(lookupEngine(values, false), engine -> {
+            int key = n;
+            for (int i = 0; i < 2 * n; i++) {
+                key = Math.floorMod(key + random.nextInt(129) - 64, 2 * n);
+                engine.search(key);
+            }
+        });
+        Path uniform = Benchmarks.record(lookupEngine(values, false), engine -> {
+            for (int i = 0; i < 2 * n; i++) {
+                engine.search(random.nextInt(2 * n));
+            }
+        });
+
+        String[] names = {"sweep", "walk", "uniform"};
+        Path[] traces = {sweep, walk, uniform};
+        for (int t = 0; t < traces.length; t++) {
+            TraceReplay root = Benchmarks.replay(names[t] + " search()", traces[t], () -> lookupEngine(values, false));
+            TraceReplay near = Benchmarks.replay(names[t] + " searchNear()", traces[t], () -> lookupEngine(values, true));
+            assert near.getHits() == root.getHits() : names[t] + " hits differ";
+            logger.info(String.format("%s: searchNear() runs at %.2fx the throughput of search()",
+                    names[t], near.getThroughput() / root.getThroughput()));
+        }
+
+        Path sequential = Benchmarks.record(insertEngine(false), engine -> {
+            for (int i = 0; i < n; i++) {
+                engine.insert(i);
+            }
+        });
+        Path nearlySorted = Benchmarks.record(insertEngine(false), engine -> {
+            for (int i = 0; i < n; i++) {
+                engine.insert(4 * i + random.nextInt(64));
+            }
+        });
+        Path unsorted = Benchmarks.record(insertEngine(false), engine -> {
+            for (int i = 0; i < n; i++) {
+                engine.insert(random.nextInt());
+            }
+        });
+
+        String[] streamNames = {"sequential", "nearly sorted", "random"};
+        Path[] streams = {sequential, nearlySorted, unsorted};
+        for (int t = 0; t < streams.length; t++) {
+            TraceReplay root = Benchmarks.replay(streamNames[t] + " insert()", streams[t], () -> insertEngine(false));
+            TraceReplay near = Benchmarks.replay(streamNames[t] + " insertNear()", streams[t], () -> insertEngine(true));
+            logger.info(String.format("%s: insertNear() runs at %.2fx the throughput of insert()",
+                    streamNames[t], near.getThroughput() / root.getThroughput()));
+        }
+    }
+
+    /**
+     * @param values Values the tree is built from, before the trace is replayed
+     * @param near Whether lookups start from the finger rather than the root
+     */
+    private static TraceEngine lookupEngine(int[] values, boolean near) {
+        RedBlackTree tree = new RedBlackTree();
+        tree.insertAll(values);
+        return TraceEngine.ofLookups(near ? tree::searchNear : tree::search);
+    }
+
+    /**
+     * @param near Whether insertions start from the finger rather than the root
+     * @return Engine over a fresh, empty tree
+     */
+    private static TraceEngine insertEngine(boolean near) {
+        RedBlackTree tree = new RedBlackTree();
+        return new TraceEngine() {
+            @Override
+            public void insert(int key) {
+                if (near) {
+                    tree.insertNear(key);
+                } else {
+                    tree.insert(key);
+                }
+            }
+
+            @Override
+            public void delete(int key) {
+                tree.delete(key);
+            }
+
+            @Override
+            public boolean search(int key) {
+                return near ? tree.searchNear(key) : tree.search(key);
+            }
+        };
+    }
+}
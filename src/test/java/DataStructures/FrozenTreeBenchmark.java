@@ -0,0 +1,80 @@
+package DataStructures;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.logging.Logger;
+
+/**
+ * Compares lookups in a FrozenTree snapshot with lookups in the live RedBlackTree it was frozen from, by replaying the
+ * same traces of searches against both: uniformly random lookups, half of which miss, and an ascending sweep over the
+ * stored values, which keeps the path through the live tree in cache.  Also compares the memory taken by the two,
+ * measured as the growth of the heap in use, after a garbage collection, when each is built.
+ *
+ * Usage: FrozenTreeBenchmark [number of values in the tree]
+ */
+class FrozenTreeBenchmark {
+    private static final Logger logger = Logger.getLogger(FrozenTreeBenchmark.class.getName());
+
+    public static void main(String[] args) throws IOException {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 1 << 20;
+        Random random = new Random(38);
+        int[] values = random.ints(n).toArray();
+        long before = usedMemory();
+        RedBlackTree tree = new RedBlackTree();
+        tree.insertAll(values);
+        long treeBytes = usedMemory() - before;
+        before = usedMemory();
+        FrozenTree frozen = tree.freeze();
+        long frozenBytes = usedMemory() - before;
+        logger.info(String.format("%d values: tree %d KiB (%.1f bytes/value), snapshot %d KiB (%.1f bytes/value, "
+                        + "%d KiB of arrays), %.1fx smaller", frozen.size(),
+                treeBytes / 1024, (double) treeBytes / frozen.size(),
+                frozenBytes / 1024, (double) frozenBytes / frozen.size(), frozen.getMemoryBytes() / 1024,
+                (double) treeBytes / frozenBytes));
+
+        Path uniform = Benchmarks.record(TraceEngine.ofLookups(tree::search), engine -> {
+            for (int i = 0; i < n; i++) {
+                engine.search(random.nextBoolean() ? values[random.nextInt(n)] : random.nextInt());
+            }
+        });
+        Path sweep = Benchmarks.record(TraceEngine.ofLookups(tree::search), engine -> {
+            int[] sorted = values.clone();
+            Arrays.sort(sorted);
+            for (int value : sorted) {
+                engine.search(value);
+            }
+        });
+
+        String[] names = {"uniform", "sweep"};
+        Path[] traces = {uniform, sweep};
+        for (int t = 0; t < traces.length; t++) {
+            // Nothing is changed by the traces, so every replay shares the same tree and snapshot
+            TraceReplay live = Benchmarks.replay(names[t] + " tree", traces[t], () -> TraceEngine.ofLookups(tree::search));
+            TraceReplay snapshot = Benchmarks.replay(names[t] + " frozen", traces[t],
+                    () -> TraceEngine.ofLookups(frozen::search));
+            assert snapshot.getHits() == live.getHits() : names[t] + " hits differ";
+            logger.info(String.format("%s: the snapshot runs at %.2fx the throughput of the tree",
+                    names[t], snapshot.getThroughput() / live.getThroughput()));
+        }
+    }
+
+    /**
+     * @return The number of bytes of heap in use once garbage collection has settled
+     */
+    private static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        long used = Long.MAX_VALUE;
+        // A collection may leave garbage behind, so collect until usage stops dropping
+        for (int i = 0; i < 10; i++) {
+            System.gc();
+            long current = runtime.totalMemory() - runtime.freeMemory();
+            if (current >= used) {
+                break;
+            }
+            used = current;
+        }
+        return used;
+    }
+}
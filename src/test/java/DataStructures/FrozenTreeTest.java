@@ -0,0 +1,105 @@
+package DataStructures;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.logging.Logger;
+
+class FrozenTreeTest {
+    private static final Logger logger = Logger.getLogger(FrozenTreeTest.class.getName());
+
+    @BeforeAll
+    static void setUpAll() {
+        logger.info("Starting FrozenTree tests...");
+    }
+
+    /**
+     * Tests search, floor, ceiling and range scans of snapshots of many sizes against a TreeSet, including the
+     * extreme int values, and that later changes to the tree leave the snapshot alone.
+     */
+    @Test
+    void queryTest() {
+        Random random = new Random(38);
+        for (int n : new int[]{0, 1, 2, 3, 7, 8, 100, 1023, 1024, 5000}) {
+            RedBlackTree tree = new RedBlackTree();
+            TreeSet<Integer> expected = new TreeSet<>();
+            for (int i = 0; i < n; i++) {
+                int value = random.nextInt(4 * n + 1) - 2 * n;
+                if (i == 1) {
+                    value = Integer.MIN_VALUE;
+                } else if (i == 2) {
+                    value = Integer.MAX_VALUE;
+                }
+                if (expected.add(value)) {
+                    tree.insert(value);
+                }
+            }
+            FrozenTree frozen = tree.freeze();
+            frozen.validate();
+            assert frozen.size() == expected.size();
+            tree.insert(4 * n + 7);
+            tree.delete(expected.isEmpty() ? 0 : expected.first());
+
+            for (int i = 0; i < 2000; i++) {
+                int value = random.nextInt(5 * n + 11) - (5 * n + 11) / 2;
+                if (i == 0) {
+                    value = Integer.MIN_VALUE;
+                } else if (i == 1) {
+                    value = Integer.MAX_VALUE;
+                }
+                assert frozen.search(value) == expected.contains(value) : "Search of " + value + " differs";
+                assert frozen.count(value) == (expected.contains(value) ? 1 : 0);
+                assert equal(frozen.floor(value), expected.floor(value)) : "Floor of " + value + " differs";
+                assert equal(frozen.ceiling(value), expected.ceiling(value)) : "Ceiling of " + value + " differs";
+
+                int high = value + random.nextInt(n + 1);
+                if (high < value) {
+                    high = Integer.MAX_VALUE;
+                }
+                List<Integer> scanned = new ArrayList<>();
+                int visited = frozen.range(value, high, scanned::add);
+                List<Integer> inRange = new ArrayList<>(expected.subSet(value, true, high, true));
+                assert visited == scanned.size() && scanned.equals(inRange) :
+                        String.format("Range [%d, %d] scanned %s instead of %s", value, high, scanned, inRange);
+            }
+        }
+        logger.info("Passed");
+    }
+
+    /**
+     * Tests that a snapshot of a multiset keeps the number of copies of every value.
+     */
+    @Test
+    void multisetTest() {
+        RedBlackTree tree = new RedBlackTree(true);
+        for (int value = 0; value < 100; value++) {
+            tree.add(value, value % 5 + 1);
+        }
+        FrozenTree frozen = tree.freeze();
+        frozen.validate();
+        assert frozen.size() == tree.size();
+        for (int value = 0; value < 100; value++) {
+            assert frozen.count(value) == value % 5 + 1;
+        }
+        assert frozen.count(100) == 0;
+
+        // Copies take no slots, so hundreds of millions of them freeze into a snapshot of two values
+        RedBlackTree heavy = new RedBlackTree(true);
+        heavy.add(7, 400_000_000);
+        heavy.add(9, 1);
+        frozen = heavy.freeze();
+        frozen.validate();
+        assert frozen.size() == 400_000_001;
+        assert frozen.count(7) == 400_000_000 && frozen.count(9) == 1;
+        assert frozen.getMemoryBytes() < 64 : frozen.getMemoryBytes() + " bytes for two values";
+        logger.info("Passed");
+    }
+
+    private static boolean equal(Integer a, Integer b) {
+        return a == null ? b == null : a.equals(b);
+    }
+}
@@ -8,6 +8,7 @@ import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.util.ArrayList;
+import java.util.Random;
 import java.util.logging.ConsoleHandler;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -85,4 +86,59 @@ class HeapTest {
         }
         logger.info("Passed");
     }
-}
\ No newline at end of file
+
+    /**
+     * Tests pushing and popping repeated values in bulk with pushN() and popAll().
+     */
+    @Test
+    void pushNAndPopAllTest() {
+        Heap heap = new Heap();
+        int[] values = {5, 3, 5, 8, 3, 1, 5};
+        int[] copies = {2, 4, 1, 3, 1, 2, 6};
+        int total = 0;
+        for (int i = 0; i < values.length; i++) {
+            heap.pushN(values[i], copies[i]);
+            heap.validate();
+            total += copies[i];
+        }
+        assert heap.size() == total : String.format("Pushed %d items but heap size is %d", total, heap.size());
+
+        assert heap.popAll(3) == 0 : "3 is not the minimum so nothing should be popped";
+        assert heap.pop() == 1;
+        assert heap.popAll(1) == 1;
+        assert heap.popAll(3) == 5;
+        heap.validate();
+        assert heap.pop() == 5;
+        assert heap.popAll(5) == 8;
+        assert heap.size() == 3;
+        assert heap.popAll(8) == 3;
+        assert heap.pop() == null;
+        assert heap.size() == 0;
+
+        // Copies beyond Integer.MAX_VALUE are rejected, leaving the heap as it was
+        heap.pushN(1, Integer.MAX_VALUE);
+        try {
+            heap.pushN(1, 2);
+            assert false : "Pushing copies should have overflowed";
+        } catch (ArithmeticException expectedException) {
+            assert heap.size() == Integer.MAX_VALUE && heap.popAll(1) == Integer.MAX_VALUE;
+        }
+        logger.info("Passed");
+    }
+
+    /**
+     * Tests that the parallel validation agrees with the sequential one on a heap large enough to be split.
+     */
+    @Test
+    void validateParallelTest() {
+        Heap heap = new Heap();
+        new Random(32).ints(100000, 0, 1000).forEach(heap::push);
+        heap.validate();
+        heap.validateParallel();
+        for (int i = 0; i < 50000; i++) {
+            heap.pop();
+        }
+        heap.validateParallel();
+        logger.info("Passed");
+    }
+}
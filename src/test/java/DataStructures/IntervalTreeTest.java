@@ -0,0 +1,88 @@
+package DataStructures;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.logging.Logger;
+
+class IntervalTreeTest {
+    private static final Logger logger = Logger.getLogger(IntervalTreeTest.class.getName());
+
+    @BeforeAll
+    static void setUpAll() {
+        logger.info("Starting IntervalTree tests...");
+    }
+
+    /**
+     * Tests insert, delete, stabbing and overlap queries against a brute-force scan of the same intervals.
+     */
+    @Test
+    void comprehensiveTest() {
+        Random random = new Random(26);
+        IntervalTree tree = new IntervalTree();
+        List<int[]> intervals = new ArrayList<>();
+
+        logger.finer("Starting insert test");
+        for (int i = 0; i < 500; i++) {
+            int start = random.nextInt(1000);
+            int end = start + 1 + random.nextInt(50);
+            boolean isNew = intervals.stream().noneMatch(interval -> interval[0] == start && interval[1] == end);
+            assert tree.insert(start, end) == isNew : String.format("Unexpected insert result for [%d, %d)", start, end);
+            if (isNew) {
+                intervals.add(new int[]{start, end});
+            }
+            tree.validate();
+        }
+        assert tree.size() == intervals.size();
+
+        logger.finer("Starting query test");
+        checkQueries(tree, intervals, random);
+
+        logger.finer("Starting delete test");
+        Collections.shuffle(intervals, random);
+        while (!intervals.isEmpty()) {
+            int[] interval = intervals.remove(intervals.size() - 1);
+            assert tree.delete(interval[0], interval[1]) : String.format("[%d, %d) should have been deleted", interval[0], interval[1]);
+            assert !tree.delete(interval[0], interval[1]);
+            tree.validate();
+            if (intervals.size() % 50 == 0) {
+                checkQueries(tree, intervals, random);
+            }
+        }
+        assert tree.size() == 0;
+        logger.info("Passed");
+    }
+
+    private void checkQueries(IntervalTree tree, List<int[]> intervals, Random random) {
+        for (int i = 0; i < 100; i++) {
+            int point = random.nextInt(1100) - 50;
+            Set<Long> expected = new HashSet<>();
+            for (int[] interval : intervals) {
+                if (interval[0] <= point && point < interval[1]) {
+                    expected.add(pack(interval[0], interval[1]));
+                }
+            }
+            Set<Long> actual = new HashSet<>();
+            int reported = tree.stab(point, (start, end) -> actual.add(pack(start, end)));
+            assert reported == expected.size() && actual.equals(expected) : "Stabbing query mismatch at " + point;
+
+            int low = random.nextInt(1100) - 50;
+            int high = low + 1 + random.nextInt(100);
+            expected.clear();
+            for (int[] interval : intervals) {
+                if (interval[0] < high && low < interval[1]) {
+                    expected.add(pack(interval[0], interval[1]));
+                }
+            }
+            actual.clear();
+            reported = tree.overlap(low, high, (start, end) -> actual.add(pack(start, end)));
+            assert reported == expected.size() && actual.equals(expected) :
+                    String.format("Overlap query mismatch for [%d, %d)", low, high);
+        }
+    }
+
+    private static long pack(int start, int end) {
+        return ((long) start << 32) | (end & 0xffffffffL);
+    }
+}
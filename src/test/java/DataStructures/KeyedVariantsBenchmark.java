@@ -0,0 +1,146 @@
+package DataStructures;
+
+import java.util.Comparator;
+import java.util.Random;
+import java.util.logging.Logger;
+
+/**
+ * Compares the int, long and Comparator-keyed variants of the tree and the heap on the same random workloads.  The
+ * keys of every variant are built before timing starts, so the timed loops hold nothing but the operations themselves:
+ * no key is mapped or allocated and no result is checked against another collection.
+ *
+ * Usage: KeyedVariantsBenchmark [number of operations]
+ */
+class KeyedVariantsBenchmark {
+    private static final Logger logger = Logger.getLogger(KeyedVariantsBenchmark.class.getName());
+    private static final int KEY_RANGE = 20000;
+    private static final int INSERT = 0;
+    private static final int DELETE = 1;
+
+    private static final Comparator<long[]> pairOrder = (a, b) -> a[0] != b[0] ? Long.compare(a[0], b[0]) : Long.compare(a[1], b[1]);
+
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 1 << 20;
+        Random random = new Random(37);
+
+        // Tree workload: a third each of insertions, deletions and searches over a small range, so that all three hit
+        int[] operations = new int[n];
+        int[] intKeys = new int[n];
+        for (int i = 0; i < n; i++) {
+            operations[i] = random.nextInt(3);
+            intKeys[i] = random.nextInt(KEY_RANGE) - KEY_RANGE / 2;
+        }
+        long[] longKeys = wide(intKeys);
+        long[][] pairKeys = pairs(intKeys);
+
+        double intTree = Benchmarks.time("int tree", n, () -> {
+            RedBlackTree tree = new RedBlackTree();
+            long hits = 0;
+            for (int i = 0; i < n; i++) {
+                if (operations[i] == INSERT) {
+                    tree.insert(intKeys[i]);
+                } else if (operations[i] == DELETE) {
+                    tree.delete(intKeys[i]);
+                } else if (tree.search(intKeys[i])) {
+                    hits++;
+                }
+            }
+            return hits + tree.size();
+        });
+        double longTree = Benchmarks.time("long tree", n, () -> {
+            LongRedBlackTree tree = new LongRedBlackTree();
+            long hits = 0;
+            for (int i = 0; i < n; i++) {
+                if (operations[i] == INSERT) {
+                    tree.insert(longKeys[i]);
+                } else if (operations[i] == DELETE) {
+                    tree.delete(longKeys[i]);
+                } else if (tree.search(longKeys[i])) {
+                    hits++;
+                }
+            }
+            return hits + tree.size();
+        });
+        double comparatorTree = Benchmarks.time("Comparator tree", n, () -> {
+            ComparatorRedBlackTree<long[]> tree = new ComparatorRedBlackTree<>(pairOrder);
+            long hits = 0;
+            for (int i = 0; i < n; i++) {
+                if (operations[i] == INSERT) {
+                    tree.insert(pairKeys[i]);
+                } else if (operations[i] == DELETE) {
+                    tree.delete(pairKeys[i]);
+                } else if (tree.search(pairKeys[i])) {
+                    hits++;
+                }
+            }
+            return hits + tree.size();
+        });
+        logger.info(String.format("Trees: long and Comparator keys take %.2fx and %.2fx the time of int keys",
+                longTree / intTree, comparatorTree / intTree));
+
+        // Heap workload: three pushes for every two pops, never popping an empty heap
+        boolean[] pushes = new boolean[n];
+        int size = 0;
+        for (int i = 0; i < n; i++) {
+            pushes[i] = size == 0 || random.nextInt(5) < 3;
+            size += pushes[i] ? 1 : -1;
+        }
+
+        double intHeap = Benchmarks.time("int heap", n, () -> {
+            Heap heap = new Heap();
+            long checksum = 0;
+            for (int i = 0; i < n; i++) {
+                if (pushes[i]) {
+                    heap.push(intKeys[i]);
+                } else {
+                    checksum += heap.pop();
+                }
+            }
+            return checksum;
+        });
+        double longHeap = Benchmarks.time("long heap", n, () -> {
+            LongHeap heap = new LongHeap();
+            long checksum = 0;
+            for (int i = 0; i < n; i++) {
+                if (pushes[i]) {
+                    heap.push(longKeys[i]);
+                } else {
+                    checksum += heap.pop();
+                }
+            }
+            return checksum;
+        });
+        double comparatorHeap = Benchmarks.time("Comparator heap", n, () -> {
+            ComparatorHeap<long[]> heap = new ComparatorHeap<>(pairOrder);
+            long checksum = 0;
+            for (int i = 0; i < n; i++) {
+                if (pushes[i]) {
+                    heap.push(pairKeys[i]);
+                } else {
+                    checksum += heap.pop()[1];
+                }
+            }
+            return checksum;
+        });
+        logger.info(String.format("Heaps: long and Comparator keys take %.2fx and %.2fx the time of int keys",
+                longHeap / intHeap, comparatorHeap / intHeap));
+    }
+
+    // Spreads keys over the whole range of a long, far outside the range of an int, preserving their order
+    private static long[] wide(int[] keys) {
+        long[] wide = new long[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            wide[i] = keys[i] * (1L << 40) + 12345;
+        }
+        return wide;
+    }
+
+    // Composite keys ordered by their first then their second component, preserving the order of the keys
+    private static long[][] pairs(int[] keys) {
+        long[][] pairs = new long[keys.length][];
+        for (int i = 0; i < keys.length; i++) {
+            pairs[i] = new long[]{keys[i] >> 8, keys[i] & 0xff};
+        }
+        return pairs;
+    }
+}
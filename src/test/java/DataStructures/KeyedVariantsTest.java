@@ -0,0 +1,293 @@
+package DataStructures;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.Comparator;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.logging.Logger;
+
+/**
+ * One suite run against the int, long and Comparator-keyed variants of the tree and the heap.  Each variant maps the
+ * same stream of long keys onto its own key type, preserving their order, so every variant sees the same workload.
+ */
+class KeyedVariantsTest {
+    private static final Logger logger = Logger.getLogger(KeyedVariantsTest.class.getName());
+    private static final int OPERATIONS = 200000;
+    private static final int KEY_RANGE = 20000;
+
+    // Composite keys for the Comparator-keyed variants, ordered by their first then their second component
+    private static final Comparator<long[]> pairOrder = (a, b) -> a[0] != b[0] ? Long.compare(a[0], b[0]) : Long.compare(a[1], b[1]);
+
+    private static long[] pair(long key) {
+        return new long[]{key >> 8, key & 0xff};
+    }
+
+    // Spreads keys over the whole range of a long, far outside the range of an int
+    private static long wide(long key) {
+        return key * (1L << 40) + 12345;
+    }
+
+    private interface SetVariant {
+        boolean insert(long key);
+
+        boolean delete(long key);
+
+        boolean search(long key);
+
+        int size();
+
+        void validate();
+    }
+
+    private interface HeapVariant {
+        void push(long key);
+
+        // Pops the minimum, mapped back to the key it was pushed for
+        long pop();
+
+        int size();
+
+        void validate();
+    }
+
+    private static final String[] variantNames = {"int", "long", "Comparator"};
+    private static final BalancingStrategy[] strategies = {
+            BalancingStrategy.RED_BLACK, BalancingStrategy.AVL, BalancingStrategy.WAVL};
+
+    private static SetVariant setVariant(int variant, BalancingStrategy strategy) {
+        if (variant == 0) {
+            RedBlackTree tree = new RedBlackTree(strategy);
+            return new SetVariant() {
+                @Override
+                public boolean insert(long key) {
+                    int before = tree.size();
+                    tree.insert((int) key);
+                    return tree.size() != before;
+                }
+
+                @Override
+                public boolean delete(long key) {
+                    int before = tree.size();
+                    tree.delete((int) key);
+                    return tree.size() != before;
+                }
+
+                @Override
+                public boolean search(long key) {
+                    return tree.search((int) key);
+                }
+
+                @Override
+                public int size() {
+                    return tree.size();
+                }
+
+                @Override
+                public void validate() {
+                    tree.validate();
+                }
+            };
+        } else if (variant == 1) {
+            LongRedBlackTree tree = new LongRedBlackTree(strategy);
+            return new SetVariant() {
+                @Override
+                public boolean insert(long key) {
+                    return tree.insert(wide(key));
+                }
+
+                @Override
+                public boolean delete(long key) {
+                    return tree.delete(wide(key));
+                }
+
+                @Override
+                public boolean search(long key) {
+                    return tree.search(wide(key));
+                }
+
+                @Override
+                public int size() {
+                    return tree.size();
+                }
+
+                @Override
+                public void validate() {
+                    tree.validate();
+                }
+            };
+        }
+        ComparatorRedBlackTree<long[]> tree = new ComparatorRedBlackTree<>(pairOrder, strategy);
+        return new SetVariant() {
+            @Override
+            public boolean insert(long key) {
+                return tree.insert(pair(key));
+            }
+
+            @Override
+            public boolean delete(long key) {
+                return tree.delete(pair(key));
+            }
+
+            @Override
+            public boolean search(long key) {
+                return tree.search(pair(key));
+            }
+
+            @Override
+            public int size() {
+                return tree.size();
+            }
+
+            @Override
+            public void validate() {
+                tree.validate();
+            }
+        };
+    }
+
+    private static HeapVariant heapVariant(int variant) {
+        if (variant == 0) {
+            Heap heap = new Heap();
+            return new HeapVariant() {
+                @Override
+                public void push(long key) {
+                    heap.push((int) key);
+                }
+
+                @Override
+                public long pop() {
+                    return heap.pop();
+                }
+
+                @Override
+                public int size() {
+                    return heap.size();
+                }
+
+                @Override
+                public void validate() {
+                    heap.validate();
+                }
+            };
+        } else if (variant == 1) {
+            LongHeap heap = new LongHeap();
+            return new HeapVariant() {
+                @Override
+                public void push(long key) {
+                    heap.push(wide(key));
+                }
+
+                @Override
+                public long pop() {
+                    return (heap.pop() - 12345) / (1L << 40);
+                }
+
+                @Override
+                public int size() {
+                    return heap.size();
+                }
+
+                @Override
+                public void validate() {
+                    heap.validate();
+                }
+            };
+        }
+        ComparatorHeap<long[]> heap = new ComparatorHeap<>(pairOrder);
+        return new HeapVariant() {
+            @Override
+            public void push(long key) {
+                heap.push(pair(key));
+            }
+
+            @Override
+            public long pop() {
+                long[] popped = heap.pop();
+                return popped[0] << 8 | popped[1];
+            }
+
+            @Override
+            public int size() {
+                return heap.size();
+            }
+
+            @Override
+            public void validate() {
+                heap.validate();
+            }
+        };
+    }
+
+    @BeforeAll
+    static void setUpAll() {
+        logger.info("Starting keyed variant tests...");
+    }
+
+    /**
+     * Runs the same random insertions, deletions and searches, over negative as well as positive keys, against every
+     * tree variant, kept balanced by every strategy, and a TreeSet.
+     */
+    @Test
+    void treeVariantsTest() {
+        for (int variant = 0; variant < variantNames.length; variant++) {
+            for (BalancingStrategy strategy : strategies) {
+                Random random = new Random(37);
+                SetVariant tree = setVariant(variant, strategy);
+                TreeSet<Long> expected = new TreeSet<>();
+                for (int i = 0; i < OPERATIONS; i++) {
+                    long key = random.nextInt(KEY_RANGE) - KEY_RANGE / 2;
+                    int operation = random.nextInt(3);
+                    if (operation == 0) {
+                        assert tree.insert(key) == expected.add(key) : variantNames[variant] + " insert of " + key + " differs";
+                    } else if (operation == 1) {
+                        assert tree.delete(key) == expected.remove(key) : variantNames[variant] + " delete of " + key + " differs";
+                    } else {
+                        assert tree.search(key) == expected.contains(key) : variantNames[variant] + " search of " + key + " differs";
+                    }
+                    assert tree.size() == expected.size();
+                    if (i % 10000 == 0) {
+                        tree.validate();
+                    }
+                }
+                tree.validate();
+            }
+        }
+        logger.info("Passed");
+    }
+
+    /**
+     * Runs the same random pushes and pops against every heap variant and a PriorityQueue.
+     */
+    @Test
+    void heapVariantsTest() {
+        for (int variant = 0; variant < variantNames.length; variant++) {
+            Random random = new Random(37);
+            HeapVariant heap = heapVariant(variant);
+            PriorityQueue<Long> expected = new PriorityQueue<>();
+            for (int i = 0; i < OPERATIONS; i++) {
+                if (expected.isEmpty() || random.nextInt(5) < 3) {
+                    long key = random.nextInt(KEY_RANGE) - KEY_RANGE / 2;
+                    heap.push(key);
+                    expected.add(key);
+                } else {
+                    long popped = heap.pop();
+                    long minimum = expected.poll();
+                    assert popped == minimum : String.format("%s heap popped %d instead of %d", variantNames[variant], popped, minimum);
+                }
+                assert heap.size() == expected.size();
+                if (i % 10000 == 0) {
+                    heap.validate();
+                }
+            }
+            while (!expected.isEmpty()) {
+                long popped = heap.pop();
+                assert popped == expected.poll();
+            }
+            heap.validate();
+        }
+        logger.info("Passed");
+    }
+}
@@ -0,0 +1,48 @@
+package DataStructures;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.logging.Logger;
+
+class LatencyHistogramTest {
+    private static final Logger logger = Logger.getLogger(LatencyHistogramTest.class.getName());
+
+    @BeforeAll
+    static void setUpAll() {
+        logger.info("Starting LatencyHistogram tests...");
+    }
+
+    /**
+     * Tests that percentiles stay within the bucket precision of the exact percentiles of a skewed distribution.
+     */
+    @Test
+    void percentileTest() {
+        Random random = new Random(33);
+        LatencyHistogram histogram = new LatencyHistogram();
+        long[] values = new long[100000];
+        for (int i = 0; i < values.length; i++) {
+            // Mostly fast operations with a long tail of slow ones
+            values[i] = (long) (100 * Math.exp(random.nextGaussian() * 1.5));
+            histogram.record(values[i]);
+        }
+        Arrays.sort(values);
+        for (double percentile : new double[]{0, 1, 50, 90, 99, 99.9, 100}) {
+            long exact = values[Math.max(0, (int) Math.ceil(percentile / 100 * values.length) - 1)];
+            long estimate = histogram.percentile(percentile);
+            assert estimate >= exact && estimate <= exact + exact / 16 + 1 :
+                    String.format("p%s estimated as %d but is %d", percentile, estimate, exact);
+        }
+        assert histogram.getCount() == values.length;
+        assert histogram.getMin() == values[0] && histogram.getMax() == values[values.length - 1];
+
+        for (long value : new long[]{0, 1, 31, 32, 33, 1000, 123456789, Long.MAX_VALUE}) {
+            int bucket = LatencyHistogram.bucketOf(value);
+            assert LatencyHistogram.highestValueOf(bucket) >= value : "Bucket of " + value + " ends below it";
+            assert bucket == 0 || LatencyHistogram.highestValueOf(bucket - 1) < value : "Bucket of " + value + " starts above it";
+        }
+        logger.info("Passed");
+    }
+}
@@ -0,0 +1,73 @@
+package DataStructures;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.logging.Logger;
+
+/**
+ * Compares RadixHeap with the binary Heap on the pushes and pops of Dijkstra's algorithm over a random sparse graph.
+ * The operations are recorded once and replayed against both heaps, so both see the very same sequence.
+ *
+ * Usage: RadixHeapBenchmark [number of bits of a node index]
+ */
+class RadixHeapBenchmark {
+    private static final Logger logger = Logger.getLogger(RadixHeapBenchmark.class.getName());
+    private static final int DEGREE = 8;
+
+    public static void main(String[] args) throws IOException {
+        int nodeBits = args.length > 0 ? Integer.parseInt(args[0]) : 16;
+        int nodes = 1 << nodeBits;
+        Random random = new Random(35);
+        int[][] targets = new int[nodes][DEGREE];
+        int[][] weights = new int[nodes][DEGREE];
+        for (int node = 0; node < nodes; node++) {
+            for (int edge = 0; edge < DEGREE; edge++) {
+                targets[node][edge] = random.nextInt(nodes);
+                weights[node][edge] = 1 + random.nextInt(100);
+            }
+        }
+
+        Path trace = Benchmarks.record(TraceEngine.of(new RedBlackTree(), new Heap()),
+                engine -> shortestPaths(targets, weights, nodeBits, engine));
+        TraceReplay binary = Benchmarks.replay("Dijkstra binary heap", trace,
+                () -> TraceEngine.of(new RedBlackTree(), new Heap()));
+        TraceReplay radix = Benchmarks.replay("Dijkstra radix heap", trace,
+                () -> TraceEngine.of(new RedBlackTree(), new RadixHeap()));
+        assert radix.getHits() == binary.getHits();
+        logger.info(String.format("Over %d nodes the radix heap runs at %.2fx the throughput of the binary heap, "
+                        + "pops at p50 %d ns against %d ns",
+                nodes, radix.getThroughput() / binary.getThroughput(),
+                radix.getLatencies(TraceOp.POP).percentile(50), binary.getLatencies(TraceOp.POP).percentile(50)));
+    }
+
+    /**
+     * Dijkstra's algorithm from node 0 with lazy deletion, pushing each tentative distance and node as one int.
+     */
+    private static void shortestPaths(int[][] targets, int[][] weights, int nodeBits, TraceEngine engine) {
+        int[] distances = new int[targets.length];
+        Arrays.fill(distances, Integer.MAX_VALUE);
+        distances[0] = 0;
+        engine.push(0);
+        int queued = 1;
+        while (queued > 0) {
+            int entry = engine.pop();
+            queued--;
+            int distance = entry >>> nodeBits;
+            int node = entry & ((1 << nodeBits) - 1);
+            if (distance > distances[node]) {
+                continue;
+            }
+            for (int edge = 0; edge < DEGREE; edge++) {
+                int target = targets[node][edge];
+                int candidate = distance + weights[node][edge];
+                if (candidate < distances[target]) {
+                    distances[target] = candidate;
+                    engine.push(candidate << nodeBits | target);
+                    queued++;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package DataStructures;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.Random;
+import java.util.logging.Logger;
+
+class RadixHeapTest {
+    private static final Logger logger = Logger.getLogger(RadixHeapTest.class.getName());
+    // Dijkstra's algorithm below packs a distance and a node into each pushed int
+    private static final int NODE_BITS = 12;
+
+    @BeforeAll
+    static void setUpAll() {
+        logger.info("Starting RadixHeap tests...");
+    }
+
+    /**
+     * Tests random monotone pushes and pops, including negative values and repeats, against the binary heap.
+     */
+    @Test
+    void monotonePushAndPopTest() {
+        Random random = new Random(35);
+        RadixHeap radixHeap = new RadixHeap();
+        Heap heap = new Heap();
+        int last = Integer.MIN_VALUE;
+
+        for (int i = 0; i < 200000; i++) {
+            if (random.nextInt(5) < 3) {
+                // Keys spread over the whole range at first, then cluster just above the last minimum
+                int value = i < 1000 ? random.nextInt() : last + random.nextInt(1 << random.nextInt(20));
+                value = Math.max(value, last);
+                radixHeap.push(value);
+                heap.push(value);
+            } else {
+                Integer expected = heap.pop();
+                Integer peeked = radixHeap.peek();
+                Integer popped = radixHeap.pop();
+                assert Objects.equals(peeked, expected) : "Expected " + expected + " but peeked " + peeked;
+                assert Objects.equals(popped, expected) : "Expected " + expected + " but popped " + popped;
+                if (popped != null) {
+                    last = popped;
+                }
+            }
+            assert radixHeap.size() == heap.size();
+            if (i % 1000 == 0) {
+                radixHeap.validate();
+            }
+        }
+        while (heap.size() > 0) {
+            Integer expected = heap.pop();
+            assert expected.equals(radixHeap.pop());
+        }
+        assert radixHeap.pop() == null && radixHeap.peek() == null;
+        logger.info("Passed");
+    }
+
+    /**
+     * Tests that pushing below the last popped minimum fails fast when assertions are enabled.
+     */
+    @Test
+    void monotoneViolationTest() {
+        RadixHeap radixHeap = new RadixHeap();
+        radixHeap.push(10);
+        radixHeap.push(20);
+        radixHeap.pop();
+        boolean failed = false;
+        try {
+            radixHeap.push(5);
+        } catch (AssertionError e) {
+            failed = true;
+        }
+        assert failed : "Pushing below the last minimum was accepted";
+        logger.info("Passed");
+    }
+
+    /**
+     * Runs Dijkstra's algorithm over a random sparse graph with both heaps, checking that the distances agree.
+     */
+    @Test
+    void shortestPathsTest() {
+        Random random = new Random(35);
+        int nodes = 1 << NODE_BITS;
+        int degree = 8;
+        int[][] targets = new int[nodes][degree];
+        int[][] weights = new int[nodes][degree];
+        for (int node = 0; node < nodes; node++) {
+            for (int edge = 0; edge < degree; edge++) {
+                targets[node][edge] = random.nextInt(nodes);
+                weights[node][edge] = 1 + random.nextInt(1000);
+            }
+        }
+
+        int[] expected = shortestPaths(targets, weights, new Heap());
+        int[] distances = shortestPaths(targets, weights, new RadixHeap());
+        assert Arrays.equals(distances, expected) : "Radix heap distances differ from the binary heap's";
+        logger.info("Passed");
+    }
+
+    /**
+     * Dijkstra's algorithm from node 0 with lazy deletion, pushing each tentative distance and node as one int.
+     */
+    private static int[] shortestPaths(int[][] targets, int[][] weights, MinHeap heap) {
+        int[] distances = new int[targets.length];
+        Arrays.fill(distances, Integer.MAX_VALUE);
+        distances[0] = 0;
+        heap.push(0);
+        while (heap.size() > 0) {
+            int entry = heap.pop();
+            int distance = entry >>> NODE_BITS;
+            int node = entry & ((1 << NODE_BITS) - 1);
+            if (distance > distances[node]) {
+                continue;
+            }
+            for (int edge = 0; edge < targets[node].length; edge++) {
+                int target = targets[node][edge];
+                int candidate = distance + weights[node][edge];
+                if (candidate < distances[target]) {
+                    distances[target] = candidate;
+                    heap.push(candidate << NODE_BITS | target);
+                }
+            }
+        }
+        return distances;
+    }
+}
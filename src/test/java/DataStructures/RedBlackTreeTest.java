@@ -5,12 +5,16 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.io.*;
+import java.nio.channels.Channels;
 import java.util.*;
 import java.util.logging.Logger;
 import java.util.stream.Stream;
 
 class RedBlackTreeTest {
     private static final Logger logger = Logger.getLogger(RedBlackTreeTest.class.getName());
+    private static final BalancingStrategy[] strategies = {
+            BalancingStrategy.RED_BLACK, BalancingStrategy.AVL, BalancingStrategy.WAVL};
+    private static final String[] strategyNames = {"red-black", "AVL", "WAVL"};
     private static String[] input_file_names = Stream.of("src/test/resources/zero_int.txt",
             "src/test/resources/ten_int.txt",
             "src/test/resources/hundred_int.txt").toArray(String[]::new);
@@ -68,4 +72,448 @@ class RedBlackTreeTest {
         }
         logger.info("Passed");
     }
-}
\ No newline at end of file
+
+    /**
+     * Tests the multiset mode add, remove and count methods against a map of expected counts.
+     */
+    @Test
+    void multisetTest() {
+        Random random = new Random(27);
+        RedBlackTree tree = new RedBlackTree(true);
+        Map<Integer, Integer> expected = new HashMap<>();
+        int expectedSize = 0;
+
+        logger.finer("Starting add test");
+        for (int i = 0; i < 2000; i++) {
+            // A skewed distribution so that a few values collect most of the copies
+            int value = (int) Math.pow(random.nextInt(1000), 2) / 1000;
+            int copies = 1 + random.nextInt(3);
+            tree.add(value, copies);
+            expected.merge(value, copies, Integer::sum);
+            expectedSize += copies;
+            tree.validate();
+        }
+        assert tree.size() == expectedSize : String.format("Expected size %d but was %d", expectedSize, tree.size());
+        for (Map.Entry<Integer, Integer> entry : expected.entrySet()) {
+            assert tree.count(entry.getKey()) == entry.getValue() : "Wrong count for " + entry.getKey();
+        }
+
+        logger.finer("Starting remove test");
+        List<Integer> values = new ArrayList<>(expected.keySet());
+        Collections.shuffle(values, random);
+        for (int value : values) {
+            int copies = expected.get(value);
+            assert tree.remove(value, 1) == 1;
+            assert tree.count(value) == copies - 1;
+            assert tree.remove(value, copies) == copies - 1;
+            assert !tree.search(value) && tree.count(value) == 0 : value + " should have been removed";
+            tree.validate();
+        }
+        assert tree.size() == 0;
+
+        RedBlackTree set = new RedBlackTree();
+        set.insert(1);
+        set.insert(1);
+        assert set.size() == 1 && set.count(1) == 1;
+
+        // Copies beyond Integer.MAX_VALUE are rejected, leaving the tree as it was
+        RedBlackTree full = new RedBlackTree(true);
+        full.add(1, Integer.MAX_VALUE - 1);
+        full.add(2, 1);
+        for (int value : new int[]{1, 3}) {
+            try {
+                full.add(value, 1);
+                assert false : "Adding a copy of " + value + " should have overflowed";
+            } catch (ArithmeticException expectedException) {
+                assert full.size() == Integer.MAX_VALUE && full.count(1) == Integer.MAX_VALUE - 1 && !full.search(3);
+            }
+        }
+        try {
+            full.insertAll(new int[]{1});
+            assert false : "Inserting a batch should have overflowed";
+        } catch (ArithmeticException expectedException) {
+            assert full.size() == Integer.MAX_VALUE && full.count(1) == Integer.MAX_VALUE - 1;
+        }
+        full.validate();
+        logger.info("Passed");
+    }
+
+    /**
+     * Tests insertNear and searchNear on sequential, nearly sorted and random streams, mixed with deletes of the
+     * maximum so that the append fast path and the finger have to follow removed nodes.
+     */
+    @Test
+    void fingerTest() {
+        Random random = new Random(28);
+        int n = 2000;
+        int[] sequential = new int[n];
+        int[] nearlySorted = new int[n];
+        int[] shuffled = new int[n];
+        for (int i = 0; i < n; i++) {
+            sequential[i] = i * 3;
+            nearlySorted[i] = i * 3 + random.nextInt(40) - 20;
+            shuffled[i] = random.nextInt(n * 3);
+        }
+        for (int[] stream : Arrays.asList(sequential, nearlySorted, shuffled)) {
+            RedBlackTree tree = new RedBlackTree();
+            TreeSet<Integer> expected = new TreeSet<>();
+            for (int i = 0; i < stream.length; i++) {
+                if (i % 2 == 0) {
+                    tree.insertNear(stream[i]);
+                } else {
+                    tree.insert(stream[i]);
+                }
+                expected.add(stream[i]);
+                if (i % 7 == 0) {
+                    int max = expected.pollLast();
+                    tree.delete(max);
+                }
+                tree.validate();
+            }
+            assert tree.size() == expected.size() : String.format("Expected size %d but was %d", expected.size(), tree.size());
+
+            logger.finer("Starting near search test");
+            for (int value = -30; value < n * 3 + 30; value++) {
+                assert tree.searchNear(value) == expected.contains(value) : "Wrong searchNear result for " + value;
+            }
+            for (int value : expected.descendingSet()) {
+                assert tree.searchNear(value) : value + " should be found";
+            }
+        }
+        logger.info("Passed");
+    }
+
+    /**
+     * Tests insertAll and deleteAll with batches both small and large relative to the tree, so that both the
+     * one-at-a-time path and the merge and rebuild path are taken, in set and multiset mode.
+     */
+    @Test
+    void batchTest() {
+        Random random = new Random(29);
+        for (boolean multiset : new boolean[]{false, true}) {
+            RedBlackTree tree = new RedBlackTree(multiset);
+            Map<Integer, Integer> expected = new HashMap<>();
+            int expectedSize = 0;
+            for (int batchSize : new int[]{1000, 3, 5000, 10, 1, 2000, 7}) {
+                int[] batch = random.ints(batchSize, 0, 4000).toArray();
+                int[] original = batch.clone();
+                boolean deleting = random.nextInt(3) == 0;
+                int changed = 0;
+                for (int value : batch) {
+                    int count = expected.getOrDefault(value, 0);
+                    if (deleting && count > 0) {
+                        expected.put(value, count - 1);
+                        changed++;
+                    } else if (!deleting && (multiset || count == 0)) {
+                        expected.put(value, count + 1);
+                        changed++;
+                    }
+                }
+                expected.values().removeIf(count -> count == 0);
+
+                int reported = deleting ? tree.deleteAll(batch) : tree.insertAll(batch);
+                assert Arrays.equals(batch, original) : "The batch should be left unmodified";
+                assert reported == changed : String.format("Expected %d values changed but %d were reported", changed, reported);
+                expectedSize += deleting ? -changed : changed;
+                assert tree.size() == expectedSize : String.format("Expected size %d but was %d", expectedSize, tree.size());
+                tree.validate();
+                for (int value = 0; value < 4000; value++) {
+                    assert tree.count(value) == expected.getOrDefault(value, 0) : "Wrong count for " + value;
+                }
+            }
+            int[] everything = expected.keySet().stream().mapToInt(Integer::intValue).toArray();
+            while (tree.size() > 0) {
+                tree.deleteAll(everything);
+                tree.validate();
+            }
+        }
+        logger.info("Passed");
+    }
+
+    /**
+     * Tests that a tree with a membership filter answers lookups exactly like one without, and that the filter
+     * saves most of the lookups of absent values.
+     */
+    @Test
+    void joinedBatchTest() {
+        // Batches much smaller than the tree are split and joined into it rather than merged and rebuilt
+        Random random = new Random(31);
+        BalancingStrategy[] strategies = {BalancingStrategy.RED_BLACK, BalancingStrategy.AVL, BalancingStrategy.WAVL};
+        for (BalancingStrategy strategy : strategies) {
+            for (boolean multiset : new boolean[]{false, true}) {
+                RedBlackTree tree = new RedBlackTree(multiset, strategy);
+                Map<Integer, Integer> expected = new HashMap<>();
+                int[] initial = random.ints(20000, 0, 40000).toArray();
+                for (int value : initial) {
+                    tree.insert(value);
+                    expected.merge(value, 1, (count, one) -> multiset ? count + one : count);
+                }
+
+                for (int round = 0; round < 200; round++) {
+                    // Some batches fall in a narrow range, others above every value of the tree
+                    int low = round % 10 == 0 ? 40000 : random.nextInt(39000);
+                    int width = round % 3 == 0 ? 50 : 40000 - low + 1000;
+                    int[] batch = random.ints(1 + random.nextInt(300), low, low + width).toArray();
+                    boolean deleting = random.nextInt(5) < 2;
+                    int changed = 0;
+                    for (int value : batch) {
+                        int count = expected.getOrDefault(value, 0);
+                        if (deleting && count > 0) {
+                            expected.put(value, count - 1);
+                            changed++;
+                        } else if (!deleting && (multiset || count == 0)) {
+                            expected.put(value, count + 1);
+                            changed++;
+                        }
+                    }
+                    expected.values().removeIf(count -> count == 0);
+
+                    int reported = deleting ? tree.deleteAll(batch) : tree.insertAll(batch);
+                    assert reported == changed : String.format("Expected %d values changed but %d were reported", changed, reported);
+                    tree.validate();
+                    for (int value : batch) {
+                        assert tree.count(value) == expected.getOrDefault(value, 0) : "Wrong count for " + value;
+                    }
+                }
+                int expectedSize = expected.values().stream().mapToInt(Integer::intValue).sum();
+                assert tree.size() == expectedSize : String.format("Expected size %d but was %d", expectedSize, tree.size());
+                for (int value = 0; value < 41000; value++) {
+                    assert tree.count(value) == expected.getOrDefault(value, 0) : "Wrong count for " + value;
+                }
+            }
+        }
+        logger.info("Passed");
+    }
+
+    @Test
+    void membershipFilterTest() {
+        Random random = new Random(31);
+        for (boolean multiset : new boolean[]{false, true}) {
+            RedBlackTree filtered = new RedBlackTree(multiset);
+            RedBlackTree plain = new RedBlackTree(multiset);
+            int[] initial = random.ints(500, 0, 100000).toArray();
+            filtered.insertAll(initial);
+            plain.insertAll(initial);
+            filtered.enableMembershipFilter(10000, 0.01);
+
+            for (int i = 0; i < 20000; i++) {
+                int value = random.nextInt(100000);
+                switch (random.nextInt(4)) {
+                    case 0:
+                        filtered.insert(value);
+                        plain.insert(value);
+                        break;
+                    case 1:
+                        filtered.delete(value);
+                        plain.delete(value);
+                        break;
+                    default:
+                        assert filtered.search(value) == plain.search(value) : "Wrong search result for " + value;
+                        assert filtered.searchNear(value) == plain.searchNear(value);
+                        assert filtered.count(value) == plain.count(value);
+                }
+            }
+            filtered.validate();
+
+            CountingBloomFilter filter = filtered.getMembershipFilter();
+            assert filter.getLookups() > 0;
+            assert filter.getSavedLookups() > filter.getLookups() / 2 :
+                    String.format("Only %d of %d lookups were saved", filter.getSavedLookups(), filter.getLookups());
+            assert filter.getFalsePositives() < filter.getLookups() / 20 :
+                    String.format("%d false positives for %d lookups", filter.getFalsePositives(), filter.getLookups());
+        }
+        logger.info("Passed");
+    }
+
+    /**
+     * Tests the parallel validator and both channel exporters on a tree large enough to be split across threads.
+     */
+    @Test
+    void validateParallelAndExportTest() throws IOException {
+        RedBlackTree tree = new RedBlackTree();
+        Random random = new Random(32);
+        for (int i = 0; i < 100000; i++) {
+            tree.insert(random.nextInt());
+        }
+        tree.validate();
+        tree.validateParallel();
+
+        RedBlackTree small = new RedBlackTree();
+        for (int value : new int[]{5, 3, 8, 1, 4, -7}) {
+            small.insert(value);
+        }
+        small.validateParallel();
+
+        ByteArrayOutputStream levels = new ByteArrayOutputStream();
+        small.exportLevels(Channels.newChannel(levels));
+        assert levels.toString("US-ASCII").equals("[5(BLACK)]\n[3(RED), 8(BLACK)]\n[1(BLACK), 4(BLACK)]\n[-7(RED)]\n") :
+                "Unexpected levels:\n" + levels.toString("US-ASCII");
+
+        ByteArrayOutputStream dot = new ByteArrayOutputStream();
+        small.exportDot(Channels.newChannel(dot));
+        String graph = dot.toString("US-ASCII");
+        assert graph.startsWith("digraph RedBlackTree {\n") && graph.endsWith("}\n") : graph;
+        assert graph.contains("  \"-7\" [label=\"-7\", color=red];\n") && graph.contains("  \"1\" -> \"-7\";\n") : graph;
+
+        // A large export has to go through several flushes of the writer's buffer
+        ByteArrayOutputStream large = new ByteArrayOutputStream();
+        tree.exportDot(Channels.newChannel(large));
+        long edges = large.toString("US-ASCII").chars().filter(c -> c == '>').count();
+        assert edges == tree.size() - 1 : String.format("Expected %d edges but found %d", tree.size() - 1, edges);
+        logger.info("Passed");
+    }
+
+    private static double log2(int n) {
+        return Math.log(n) / Math.log(2);
+    }
+
+    /**
+     * Tests random insertions, deletions, finger operations and batches under every balancing strategy, in set and
+     * multiset mode, against a map of counts, validating the tree, its height bound and a snapshot along the way.
+     */
+    @Test
+    void balancingStrategyTest() {
+        for (int s = 0; s < strategies.length; s++) {
+            for (boolean multiset : new boolean[]{false, true}) {
+                Random random = new Random(36);
+                RedBlackTree tree = new RedBlackTree(multiset, strategies[s]);
+                assert tree.getStrategy() == strategies[s];
+                TreeMap<Integer, Integer> expected = new TreeMap<>();
+                int expectedSize = 0;
+                for (int i = 0; i < 30000; i++) {
+                    int value = random.nextInt(3000) - 1500;
+                    int count = expected.getOrDefault(value, 0);
+                    switch (random.nextInt(6)) {
+                        case 0:
+                            tree.insert(value);
+                            break;
+                        case 1:
+                            tree.insertNear(value);
+                            break;
+                        case 2:
+                        case 3:
+                            tree.delete(value);
+                            break;
+                        case 4:
+                            assert tree.searchNear(value) == (count > 0) : strategyNames[s] + " searchNear of " + value;
+                            continue;
+                        default:
+                            assert tree.search(value) == (count > 0) : strategyNames[s] + " search of " + value;
+                            continue;
+                    }
+                    if (tree.count(value) > count) {
+                        expected.put(value, count + 1);
+                        expectedSize++;
+                    } else if (tree.count(value) < count) {
+                        expected.put(value, count - 1);
+                        expectedSize--;
+                    }
+                    expected.remove(value, 0);
+                    assert tree.size() == expectedSize : strategyNames[s] + " size differs";
+                    if (i % 1000 == 0) {
+                        tree.validate();
+                        assert tree.height() <= 2 * log2(expected.size() + 1) + 1 :
+                                String.format("%s tree of %d nodes has height %d", strategyNames[s], expected.size(), tree.height());
+                    }
+                }
+                for (Map.Entry<Integer, Integer> entry : expected.entrySet()) {
+                    assert tree.count(entry.getKey()) == (multiset ? entry.getValue() : 1) : strategyNames[s] + " count differs";
+                }
+
+                // A large batch goes through the merge and rebuild, after which the tree has to follow the strategy
+                int[] batch = random.ints(20000, -1500, 1500).toArray();
+                tree.insertAll(batch);
+                tree.validate();
+                tree.validateParallel();
+                tree.deleteAll(Arrays.copyOf(batch, 50));
+                tree.validate();
+                FrozenTree frozen = tree.freeze();
+                frozen.validate();
+                assert frozen.size() == tree.size();
+
+                int[] everything = new int[3000];
+                Arrays.setAll(everything, i -> i - 1500);
+                while (tree.size() > 0) {
+                    for (int value : everything) {
+                        tree.delete(value);
+                    }
+                    tree.validate();
+                }
+                assert tree.height() == 0;
+            }
+        }
+        logger.info("Passed");
+    }
+
+    /**
+     * Tests that a WAVL tree that has only seen insertions is the very same tree as the AVL tree, and that AVL
+     * balancing keeps the tree lower than red-black balancing on ascending insertions.
+     */
+    @Test
+    void insertOnlyBalancingTest() {
+        RedBlackTree[] trees = new RedBlackTree[strategies.length];
+        for (int s = 0; s < strategies.length; s++) {
+            trees[s] = new RedBlackTree(strategies[s]);
+            for (int value = 0; value < 20000; value++) {
+                trees[s].insert(value);
+            }
+            trees[s].validate();
+        }
+        RedBlackTree redBlack = trees[0];
+        RedBlackTree avl = trees[1];
+        RedBlackTree wavl = trees[2];
+        assert avl.height() == wavl.height() && avl.getRotations() == wavl.getRotations() :
+                "WAVL diverged from AVL without any deletion";
+        assert sameShape(avl.getRoot(), wavl.getRoot()) : "WAVL built a different tree from AVL";
+        assert avl.height() <= 1.45 * log2(avl.size() + 2) : "AVL tree of height " + avl.height();
+        assert avl.height() < redBlack.height() :
+                String.format("AVL height %d is not below red-black height %d", avl.height(), redBlack.height());
+
+        ByteArrayOutputStream levels = new ByteArrayOutputStream();
+        RedBlackTree small = new RedBlackTree(BalancingStrategy.AVL);
+        for (int value : new int[]{1, 2, 3}) {
+            small.insert(value);
+        }
+        try {
+            small.exportLevels(Channels.newChannel(levels));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        assert levels.toString().equals("[2(1)]\n[1(0), 3(0)]\n") : "Unexpected levels:\n" + levels;
+        logger.info("Passed");
+    }
+
+    private static boolean sameShape(RedBlackNode a, RedBlackNode b) {
+        if (a == null || a.isSentinel() || b == null || b.isSentinel()) {
+            return a == b;
+        }
+        return a.data.equals(b.data) && a.rank == b.rank
+                && sameShape(a.left(), b.left()) && sameShape(a.right(), b.right());
+    }
+
+    /**
+     * Tests that deleting every value of a random tree never takes more than three rotations per deletion under
+     * red-black balancing, nor more than two under WAVL balancing.
+     */
+    @Test
+    void deletionRotationsTest() {
+        int[] limits = {3, Integer.MAX_VALUE, 2};
+        for (int s = 0; s < strategies.length; s++) {
+            Random random = new Random(36);
+            RedBlackTree tree = new RedBlackTree(strategies[s]);
+            int[] values = random.ints(20000).toArray();
+            for (int value : values) {
+                tree.insert(value);
+            }
+            for (int value : values) {
+                long before = tree.getRotations();
+                tree.delete(value);
+                assert tree.getRotations() - before <= limits[s] :
+                        String.format("%s deletion took %d rotations", strategyNames[s], tree.getRotations() - before);
+            }
+            assert tree.size() == 0 : tree.size() + " values left after deleting them all";
+            tree.validate();
+        }
+        logger.info("Passed");
+    }
+}
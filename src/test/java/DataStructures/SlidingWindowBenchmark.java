@@ -0,0 +1,50 @@
+package DataStructures;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.logging.Logger;
+
+/**
+ * Compares the throughput of a count window median kept by SlidingWindowQuantile with that of re-sorting the window
+ * after every sample, for windows from a few dozen to tens of thousands of samples.  Re-sorting costs O(w log w) per
+ * sample against O(log w), so it is run over fewer samples for the larger windows and compared per sample.
+ *
+ * Usage: SlidingWindowBenchmark [number of samples]
+ */
+class SlidingWindowBenchmark {
+    private static final Logger logger = Logger.getLogger(SlidingWindowBenchmark.class.getName());
+    private static final double QUANTILE = 0.5;
+
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 1 << 20;
+        int[] samples = new Random(30).ints(n).toArray();
+
+        for (int windowSize : new int[]{64, 1024, 16384}) {
+            double heaps = Benchmarks.time("w=" + windowSize + " paired heaps", n, () -> {
+                SlidingWindowQuantile window = SlidingWindowQuantile.countWindow(QUANTILE, windowSize);
+                long checksum = 0;
+                for (int sample : samples) {
+                    checksum += window.add(sample);
+                }
+                return checksum;
+            });
+
+            int resortedSamples = Math.max(1000, Math.min(n, (1 << 26) / windowSize));
+            double resort = Benchmarks.time("w=" + windowSize + " re-sort", resortedSamples, () -> {
+                int[] ring = new int[windowSize];
+                int[] sorted = new int[windowSize];
+                long checksum = 0;
+                for (int i = 0; i < resortedSamples; i++) {
+                    ring[i % windowSize] = samples[i];
+                    int size = Math.min(i + 1, windowSize);
+                    System.arraycopy(ring, 0, sorted, 0, size);
+                    Arrays.sort(sorted, 0, size);
+                    checksum += sorted[(int) Math.ceil(QUANTILE * size) - 1];
+                }
+                return checksum;
+            });
+            logger.info(String.format("w=%d: paired heaps run at %.1fx the throughput of re-sorting",
+                    windowSize, resort / heaps));
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package DataStructures;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Random;
+import java.util.logging.Logger;
+
+class SlidingWindowQuantileTest {
+    private static final Logger logger = Logger.getLogger(SlidingWindowQuantileTest.class.getName());
+    private static final double[] quantiles = {0.5, 0.9, 0.99, 1.0};
+
+    @BeforeAll
+    static void setUpAll() {
+        logger.info("Starting SlidingWindowQuantile tests...");
+    }
+
+    /**
+     * Tests count windows against re-sorting the window after every sample.
+     */
+    @Test
+    void countWindowTest() {
+        Random random = new Random(30);
+        for (double quantile : quantiles) {
+            for (int windowSize : new int[]{1, 2, 7, 100}) {
+                int[] samples = random.ints(2000, -50, 50).toArray();
+                SlidingWindowQuantile window = SlidingWindowQuantile.countWindow(quantile, windowSize);
+                int[] published = window.quantiles(Arrays.stream(samples)).toArray();
+                window.validate();
+                for (int i = 0; i < samples.length; i++) {
+                    int[] sorted = Arrays.copyOfRange(samples, Math.max(0, i - windowSize + 1), i + 1);
+                    assert published[i] == resortedQuantile(sorted, quantile) :
+                            String.format("q=%s w=%d step %d: expected %d but was %d", quantile, windowSize, i,
+                                    resortedQuantile(sorted, quantile), published[i]);
+                }
+            }
+        }
+        logger.info("Passed");
+    }
+
+    /**
+     * Tests time windows, with bursts of samples sharing a timestamp and gaps long enough to empty the window.
+     */
+    @Test
+    void timeWindowTest() {
+        Random random = new Random(31);
+        for (double quantile : quantiles) {
+            SlidingWindowQuantile window = SlidingWindowQuantile.timeWindow(quantile, 100);
+            Deque<long[]> expected = new ArrayDeque<>();
+            long time = 0;
+            for (int i = 0; i < 5000; i++) {
+                time += random.nextInt(10) == 0 ? random.nextInt(150) : random.nextInt(3);
+                int value = random.nextInt(1000);
+                while (!expected.isEmpty() && expected.peekFirst()[0] <= time - 100) {
+                    expected.removeFirst();
+                }
+                expected.addLast(new long[]{time, value});
+
+                int actual = window.add(time, value);
+                window.validate();
+                int[] sorted = expected.stream().mapToInt(sample -> (int) sample[1]).toArray();
+                assert window.size() == sorted.length;
+                assert actual == resortedQuantile(sorted, quantile) : String.format("q=%s step %d", quantile, i);
+            }
+            window.advanceTo(time + 100);
+            assert window.size() == 0 && window.quantile() == null;
+        }
+        logger.info("Passed");
+    }
+
+    private static int resortedQuantile(int[] window, double quantile) {
+        Arrays.sort(window);
+        return window[(int) Math.ceil(quantile * window.length) - 1];
+    }
+}
@@ -0,0 +1,105 @@
+package DataStructures;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.logging.Logger;
+
+class TraceReplayTest {
+    private static final Logger logger = Logger.getLogger(TraceReplayTest.class.getName());
+
+    @BeforeAll
+    static void setUpAll() {
+        logger.info("Starting TraceReplay tests...");
+    }
+
+    /**
+     * Records a random workload, then replays the trace against fresh structures and against java.util collections,
+     * checking that every replay ends in the same state and sees the same hits.
+     */
+    @Test
+    void recordAndReplayTest() throws IOException {
+        Path trace = Files.createTempFile("workload", ".trace");
+        try {
+            RedBlackTree recordedTree = new RedBlackTree();
+            Heap recordedHeap = new Heap();
+            long recordedHits = 0;
+            Random random = new Random(33);
+            try (TraceRecorder recorder = new TraceRecorder(TraceEngine.of(recordedTree, recordedHeap),
+                    FileChannel.open(trace, StandardOpenOption.WRITE))) {
+                for (int i = 0; i < 50000; i++) {
+                    int key = random.nextInt(2000);
+                    switch (random.nextInt(5)) {
+                        case 0: recorder.insert(key); break;
+                        case 1: recorder.delete(key); break;
+                        case 2: recordedHits += recorder.search(key) ? 1 : 0; break;
+                        case 3: recorder.push(key); break;
+                        default: recordedHits += recorder.pop() != null ? 1 : 0;
+                    }
+                }
+                assert recorder.getRecords() == 50000;
+            }
+            assert Files.size(trace) == TraceRecorder.HEADER_BYTES + 50000L * TraceRecorder.RECORD_BYTES;
+
+            RedBlackTree tree = new RedBlackTree();
+            Heap heap = new Heap();
+            TraceReplay replay = TraceReplay.replay(trace, TraceEngine.of(tree, heap));
+            logger.fine("Replayed against RedBlackTree and Heap: " + replay);
+            assert replay.getOperations() == 50000;
+            assert replay.getHits() == recordedHits : String.format("Recorded %d hits but replayed %d", recordedHits, replay.getHits());
+            assert tree.size() == recordedTree.size() && heap.size() == recordedHeap.size();
+            assert replay.getLatencies().percentile(50) <= replay.getLatencies().percentile(99);
+            assert replay.getLatencies().percentile(99) <= replay.getLatencies().percentile(99.9);
+            long perOp = 0;
+            for (TraceOp op : TraceOp.values()) {
+                perOp += replay.getLatencies(op).getCount();
+            }
+            assert perOp == 50000;
+
+            TreeSet<Integer> set = new TreeSet<>();
+            PriorityQueue<Integer> queue = new PriorityQueue<>();
+            TraceReplay alternative = TraceReplay.replay(trace, new TraceEngine() {
+                public void insert(int key) { set.add(key); }
+                public void delete(int key) { set.remove(key); }
+                public boolean search(int key) { return set.contains(key); }
+                public void push(int key) { queue.add(key); }
+                public Integer pop() { return queue.poll(); }
+            });
+            logger.fine("Replayed against TreeSet and PriorityQueue: " + alternative);
+            assert alternative.getHits() == recordedHits;
+            assert set.size() == tree.size() && queue.size() == heap.size();
+        } finally {
+            Files.delete(trace);
+        }
+        logger.info("Passed");
+    }
+
+    /**
+     * Tests that a file without the trace header is rejected.
+     */
+    @Test
+    void rejectsForeignFileTest() throws IOException {
+        Path notATrace = Files.createTempFile("workload", ".txt");
+        try {
+            Files.write(notATrace, "101\r\n75\r\n".getBytes("UTF-16"));
+            boolean rejected = false;
+            try {
+                TraceReplay.replay(notATrace, TraceEngine.of(new RedBlackTree(), new Heap()));
+            } catch (IOException e) {
+                rejected = true;
+            }
+            assert rejected : "A text file should not replay as a trace";
+        } finally {
+            Files.delete(notATrace);
+        }
+        logger.info("Passed");
+    }
+}